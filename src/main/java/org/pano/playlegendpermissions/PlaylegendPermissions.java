@@ -3,10 +3,13 @@ package org.pano.playlegendpermissions;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.pano.playlegendpermissions.config.localization.LocalizationManager;
 import org.pano.playlegendpermissions.repository.Player2GroupRepository;
+import org.pano.playlegendpermissions.repository.PlayerCurrentGroupRepository;
 import org.pano.playlegendpermissions.repository.PlayerRepository;
 import org.pano.playlegendpermissions.repository.UserGroupRepository;
+import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.service.PlayerService;
 import org.pano.playlegendpermissions.service.UserGroupService;
+import org.pano.playlegendpermissions.service.cache.CacheSnapshot;
 import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
 import org.pano.playlegendpermissions.service.cache.UserGroupCacheManager;
 import org.pano.playlegendpermissions.service.command.PluginCommandExecutor;
@@ -15,10 +18,18 @@ import org.pano.playlegendpermissions.service.listener.ChatListener;
 import org.pano.playlegendpermissions.service.listener.GroupSignListener;
 import org.pano.playlegendpermissions.service.listener.PlayerJoinListener;
 import org.pano.playlegendpermissions.service.listener.PlayerQuitListener;
+import org.pano.playlegendpermissions.service.scheduler.HistoryCompactionScheduler;
+import org.pano.playlegendpermissions.service.scheduler.MainThreadExecutor;
 import org.pano.playlegendpermissions.service.scheduler.PermissionCheckScheduler;
 import org.pano.playlegendpermissions.store.DatabaseConfig;
+import org.pano.playlegendpermissions.store.DatabaseExecutor;
+import org.pano.playlegendpermissions.store.QueryMetrics;
+import org.pano.playlegendpermissions.store.TransactionManager;
+import org.pano.playlegendpermissions.store.WriteBehindQueue;
 
+import java.io.File;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class for the PlaylegendPermissions plugin.
@@ -27,6 +38,12 @@ import java.util.Objects;
  * to handle various Bukkit events.
  */
 public final class PlaylegendPermissions extends JavaPlugin {
+    private DatabaseExecutor databaseExecutor;
+    private WriteBehindQueue<Player, String> playerWriteQueue;
+    private CacheSnapshot cacheSnapshot;
+    private UserGroupCacheManager userGroupCacheManager;
+    private PlayerCacheManager playerCacheManager;
+
     /**
      * Called when the plugin is enabled. This method sets up the default configuration,
      * initializes the database, services, command executors, and event listeners.
@@ -42,26 +59,71 @@ public final class PlaylegendPermissions extends JavaPlugin {
             DatabaseConfig.setupDataSource(this);
             DatabaseConfig.initializeDatabase();
 
+            databaseExecutor = new DatabaseExecutor(DatabaseConfig.asyncMaxConcurrency, getLogger());
+            MainThreadExecutor mainThreadExecutor = new MainThreadExecutor(this);
+
             UserGroupRepository userGroupRepository = new UserGroupRepository();
             PlayerRepository playerRepository = new PlayerRepository();
             Player2GroupRepository player2GroupRepository = new Player2GroupRepository();
+            PlayerCurrentGroupRepository playerCurrentGroupRepository = new PlayerCurrentGroupRepository();
 
-            UserGroupCacheManager userGroupCacheManager = new UserGroupCacheManager(userGroupRepository);
-            PlayerCacheManager playerCacheManager = new PlayerCacheManager();
+            userGroupCacheManager = new UserGroupCacheManager(userGroupRepository);
+            playerCacheManager = new PlayerCacheManager();
+            TransactionManager transactionManager = new TransactionManager(DatabaseConfig.transactionIsolation);
+            playerWriteQueue = new WriteBehindQueue<>(playerRepository, Player::getUuid,
+                    getConfig().getInt("database.writeBehind.batchSize", 100),
+                    getConfig().getLong("database.writeBehind.flushInterval", 500),
+                    getConfig().getInt("database.writeBehind.maxPending", 10000), getLogger());
 
-            PlayerService playerService = new PlayerService(playerRepository, player2GroupRepository, playerCacheManager);
+            PlayerService playerService = new PlayerService(playerRepository, player2GroupRepository, playerCurrentGroupRepository, playerCacheManager, playerWriteQueue, transactionManager, databaseExecutor);
             UserGroupService userGroupService = new UserGroupService(userGroupRepository, userGroupCacheManager, playerCacheManager, playerRepository, localizationManager);
 
-            PermissionCheckScheduler permissionCheckScheduler = new PermissionCheckScheduler(this, playerCacheManager, playerService, localizationManager);
+            PermissionCheckScheduler permissionCheckScheduler = new PermissionCheckScheduler(this, playerCacheManager, playerService, localizationManager, mainThreadExecutor);
 
-            userGroupCacheManager.loadIntoCache();
+            boolean snapshotLoaded = false;
+            if (getConfig().getBoolean("cache.snapshot.enabled", true)) {
+                cacheSnapshot = new CacheSnapshot(new File(getDataFolder(), getConfig().getString("cache.snapshot.file", "cache.snapshot")),
+                        TimeUnit.MINUTES.toMillis(getConfig().getLong("cache.snapshot.maxAge", 60)), getLogger());
+                snapshotLoaded = cacheSnapshot.load(userGroupCacheManager, playerCacheManager);
+            }
+            if (snapshotLoaded) {
+                databaseExecutor.execute(() -> {
+                    try {
+                        userGroupCacheManager.loadIntoCache();
+                    } catch (Exception e) {
+                        getLogger().warning("Could not refresh the groups restored from the cache snapshot: " + e.getMessage());
+                    }
+                });
+            } else {
+                userGroupCacheManager.loadIntoCache();
+            }
 
             permissionCheckScheduler.startTask();
 
-            Objects.requireNonNull(this.getCommand("pper")).setExecutor(new PluginCommandExecutor(this, userGroupService, playerService, localizationManager));
+            if (getConfig().getBoolean("database.compaction.enabled", true)) {
+                new HistoryCompactionScheduler(this, player2GroupRepository, transactionManager,
+                        TimeUnit.DAYS.toMillis(getConfig().getLong("database.compaction.minAge", 30)),
+                        getConfig().getInt("database.compaction.batchSize", 500),
+                        getConfig().getLong("database.compaction.batchDelay", 200),
+                        getConfig().getInt("database.compaction.maxBatchesPerRun", 100))
+                        .startTask(getConfig().getLong("database.compaction.interval", 3600));
+            }
+
+            final long snapshotInterval = getConfig().getLong("cache.snapshot.interval", 300) * 20L;
+            if (cacheSnapshot != null && snapshotInterval > 0) {
+                getServer().getScheduler().runTaskTimerAsynchronously(this,
+                        () -> cacheSnapshot.write(userGroupCacheManager, playerCacheManager), snapshotInterval, snapshotInterval);
+            }
+
+            final long metricsInterval = getConfig().getLong("database.metrics.summaryInterval", 0) * 20L;
+            if (metricsInterval > 0) {
+                getServer().getScheduler().runTaskTimerAsynchronously(this, QueryMetrics::logSummary, metricsInterval, metricsInterval);
+            }
+
+            Objects.requireNonNull(this.getCommand("pper")).setExecutor(new PluginCommandExecutor(this, userGroupService, playerService, localizationManager, databaseExecutor, mainThreadExecutor));
             Objects.requireNonNull(this.getCommand("pper")).setTabCompleter(new PluginTabCompleter(userGroupCacheManager));
 
-            getServer().getPluginManager().registerEvents(new PlayerJoinListener(playerService, userGroupService, localizationManager, this), this);
+            getServer().getPluginManager().registerEvents(new PlayerJoinListener(playerService, userGroupService, localizationManager, this, databaseExecutor, mainThreadExecutor), this);
             getServer().getPluginManager().registerEvents(new PlayerQuitListener(playerService), this);
             getServer().getPluginManager().registerEvents(new ChatListener(playerService, this), this);
             getServer().getPluginManager().registerEvents(new GroupSignListener(), this);
@@ -70,4 +132,23 @@ public final class PlaylegendPermissions extends JavaPlugin {
         }
 
     }
+
+    /**
+     * Called when the plugin is disabled. Waits for pending database tasks, writes the queued
+     * player records and the cache snapshot, logs the statement statistics and closes the connection pool.
+     */
+    @Override
+    public void onDisable() {
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdown(getConfig().getLong("database.async.shutdownTimeout", 10), TimeUnit.SECONDS);
+        }
+        if (playerWriteQueue != null) {
+            playerWriteQueue.shutdown(getConfig().getLong("database.async.shutdownTimeout", 10), TimeUnit.SECONDS);
+        }
+        if (cacheSnapshot != null) {
+            cacheSnapshot.write(userGroupCacheManager, playerCacheManager);
+        }
+        QueryMetrics.logSummary();
+        DatabaseConfig.closeDataSource();
+    }
 }
@@ -0,0 +1,9 @@
+package org.pano.playlegendpermissions.exceptions;
+
+import java.sql.SQLException;
+
+public class DatabaseUnavailableException extends SQLException {
+    public DatabaseUnavailableException() {
+        super("Database is unavailable, the request was rejected without waiting for a connection");
+    }
+}
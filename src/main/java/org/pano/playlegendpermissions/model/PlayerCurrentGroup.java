@@ -0,0 +1,41 @@
+package org.pano.playlegendpermissions.model;
+
+import org.pano.playlegendpermissions.config.annotations.Column;
+import org.pano.playlegendpermissions.config.annotations.Table;
+
+@Table("player_current_group")
+public class PlayerCurrentGroup {
+    @Column(name = "player_uuid", isPrimary = true)
+    private String playerUuid;
+    @Column(name = "assignment_id")
+    private long assignmentId;
+
+    public PlayerCurrentGroup(String playerUuid, long assignmentId) {
+        this.playerUuid = playerUuid;
+        this.assignmentId = assignmentId;
+    }
+
+    public String getPlayerUuid() {
+        return playerUuid;
+    }
+
+    public void setPlayerUuid(String playerUuid) {
+        this.playerUuid = playerUuid;
+    }
+
+    public long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerCurrentGroup{" +
+                "playerUuid='" + playerUuid + '\'' +
+                ", assignmentId=" + assignmentId +
+                '}';
+    }
+}
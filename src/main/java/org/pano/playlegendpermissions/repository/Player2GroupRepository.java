@@ -2,24 +2,43 @@ package org.pano.playlegendpermissions.repository;
 
 import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.model.Player2Group;
-import org.pano.playlegendpermissions.model.UserGroup;
+import org.pano.playlegendpermissions.model.PlayerCurrentGroup;
 import org.pano.playlegendpermissions.store.DatabaseConfig;
 import org.pano.playlegendpermissions.store.DatabaseStoreInterface;
 import org.pano.playlegendpermissions.store.DatabaseUtils;
+import org.pano.playlegendpermissions.store.Page;
+import org.pano.playlegendpermissions.store.ProjectionQuery;
+import org.pano.playlegendpermissions.store.TransactionManager;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Repository class for handling database operations related to the Player2Group entity.
  * This class extends the generic DatabaseUtils for Player2Group and implements the DatabaseStoreInterface.
  */
 public class Player2GroupRepository extends DatabaseUtils<Player2Group> implements DatabaseStoreInterface<Player2Group, Long> {
-
+    private static final int IN_LIST_CHUNK_SIZE = 100;
+    private static final ProjectionQuery<Player2Group> FIND_ALL_BY_PLAYER = ProjectionQuery.select(Player2Group.class)
+            .where("Player2Group.player_uuid = ?")
+            .orderBy("Player2Group.create_date DESC, Player2Group.id DESC");
+    private static final ProjectionQuery<Player2Group> FIND_CURRENT_BY_PLAYER = ProjectionQuery.select(Player2Group.class)
+            .where("Player2Group.id = (SELECT current_group.assignment_id FROM {PREFIX}player_current_group AS current_group"
+                    + " WHERE current_group.player_uuid = ?)");
+    private static final ProjectionQuery<Player2Group> FIND_ACTIVE_BY_PLAYERS = ProjectionQuery.select(Player2Group.class)
+            .where("Player2Group.id IN (SELECT current_group.assignment_id FROM {PREFIX}player_current_group AS current_group"
+                    + " WHERE current_group.player_uuid IN (" + inList(IN_LIST_CHUNK_SIZE) + "))"
+                    + " AND (Player2Group.expire_datetime IS NULL OR Player2Group.expire_datetime > ?)");
+    private static final ProjectionQuery<Player2Group> FIND_NEWEST_ACTIVE_BY_PLAYERS = ProjectionQuery.select(Player2Group.class)
+            .where("Player2Group.player_uuid IN (" + inList(IN_LIST_CHUNK_SIZE) + ")"
+                    + " AND (Player2Group.expire_datetime IS NULL OR Player2Group.expire_datetime > ?)")
+            .orderBy("Player2Group.create_date DESC, Player2Group.id DESC");
 
     @Override
     public Player2Group findOne(Player2Group player2Group) throws Exception {
@@ -40,10 +59,21 @@ public class Player2GroupRepository extends DatabaseUtils<Player2Group> implemen
         }
     }
 
+    @Override
+    public Stream<Player2Group> streamAll() throws SQLException {
+        return streamAll(Player2Group.class).stream();
+    }
+
+    @Override
+    public Page<Player2Group> findPage(Object cursor, int pageSize) throws SQLException {
+        return findPage(Player2Group.class, cursor, pageSize);
+    }
+
     @Override
     public Player2Group save(Player2Group player2Group) throws SQLException, IllegalAccessException {
         if (player2Group.getId() > 0) {
-            return update(player2Group);
+            upsertObjectInDatabase(player2Group);
+            return player2Group;
         }
         final var generatedKey = saveObjectToDatabase(player2Group);
         player2Group.setId(generatedKey);
@@ -51,59 +81,127 @@ public class Player2GroupRepository extends DatabaseUtils<Player2Group> implemen
     }
 
     @Override
-    public Player2Group update(Player2Group entity) {
-        return null;
+    public Player2Group update(Player2Group entity) throws SQLException, IllegalAccessException {
+        updateObjectInDatabase(entity);
+        return entity;
+    }
+
+    @Override
+    public List<Player2Group> saveAll(Collection<Player2Group> entities) throws SQLException, IllegalAccessException {
+        final List<Player2Group> newEntities = new ArrayList<>();
+        final List<Player2Group> existingEntities = new ArrayList<>();
+        for (Player2Group player2Group : entities) {
+            if (player2Group.getId() > 0) {
+                existingEntities.add(player2Group);
+            } else {
+                newEntities.add(player2Group);
+            }
+        }
+        upsertObjectsInDatabase(existingEntities);
+        final List<Long> generatedKeys = saveObjectsToDatabase(newEntities);
+        for (int i = 0; i < generatedKeys.size() && i < newEntities.size(); i++) {
+            newEntities.get(i).setId(generatedKeys.get(i));
+        }
+        return new ArrayList<>(entities);
+    }
+
+    @Override
+    public List<Player2Group> updateAll(Collection<Player2Group> entities) throws SQLException, IllegalAccessException {
+        updateObjectsInDatabase(entities);
+        return new ArrayList<>(entities);
     }
 
     /**
-     * Finds all Player2Group entities associated with a specific Player.
+     * Finds all Player2Group entities associated with a specific Player, newest first.
      *
      * @param player The Player whose Player2Group associations are to be found.
      * @return A list of Player2Group entities associated with the given Player.
      * @throws SQLException If there is an issue during the database operation.
      */
     public List<Player2Group> findAllByPlayer(Player player) throws SQLException {
-        String sql = "SELECT * FROM " +
-                getPrefixedTableName(Player2Group.class) +
-                generateJoinString(Player2Group.class) +
-                " WHERE " +
-                getPrefixedTableName(Player.class) +
-                ".uuid" +
-                " = ? " +
-                " ORDER BY " +
-                getPrefixedTableName(Player2Group.class) +
-                ".create_date DESC ";
-        System.out.println(sql);
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, player.getUuid());
-            final var resultSet = stmt.executeQuery();
-
-            List<Player2Group> player2Groups = new ArrayList<>();
-            while (resultSet.next()) {
-                player2Groups.add(mapRowToGroup(resultSet));
-            }
-            resultSet.close();
-            return player2Groups;
-        }
+        return query("Player2GroupRepository.findAllByPlayer", routingKey(Player2Group.class, player.getUuid()), FIND_ALL_BY_PLAYER, player.getUuid());
     }
 
     /**
-     * Maps a row in a ResultSet to a Player2Group entity.
+     * Finds the Player2Group entity referenced as the current group of a specific Player.
+     * The assignment may have expired since it was recorded, callers have to check its expiration date.
      *
-     * @param rs The ResultSet from which to map the data.
-     * @return A Player2Group entity populated with data from the ResultSet row.
-     * @throws SQLException If there is an issue reading from the ResultSet.
+     * @param player The Player whose current assignment is to be found.
+     * @return The current Player2Group entity, or null if none is recorded.
+     * @throws SQLException If there is an issue during the database operation.
      */
-    private Player2Group mapRowToGroup(ResultSet rs) throws SQLException {
-        return new Player2Group(
-                rs.getLong(1),
-                new Player(rs.getString("uuid"), rs.getString("display_name"), rs.getTimestamp(9)),
-                new UserGroup(rs.getLong(10), rs.getString(11), rs.getString(12)),
-                rs.getTimestamp("expire_datetime"),
-                rs.getTimestamp("create_date"),
-                rs.getLong("last_group_id"));
+    public Player2Group findCurrentByPlayer(Player player) throws SQLException {
+        final List<Player2Group> result = query("Player2GroupRepository.findCurrentByPlayer", routingKey(PlayerCurrentGroup.class, player.getUuid()), FIND_CURRENT_BY_PLAYER, player.getUuid());
+        return result.isEmpty() ? null : result.get(0);
     }
 
+    /**
+     * Finds the active current Player2Group entities of many players with chunked IN-list queries.
+     * Players without a recorded current group, or whose recorded assignment expired, are not contained.
+     *
+     * @param uuids The UUIDs of the players.
+     * @return The active current Player2Group entities, at most one per player.
+     * @throws SQLException If there is an issue during the database operation.
+     */
+    public List<Player2Group> findActiveByPlayers(Collection<String> uuids) throws SQLException {
+        return queryInChunks("Player2GroupRepository.findActiveByPlayers", FIND_ACTIVE_BY_PLAYERS, IN_LIST_CHUNK_SIZE,
+                uuids, new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Finds the newest active Player2Group entity of each of the given players in the assignment history,
+     * regardless of the recorded current group. The players are read in chunks of a fixed IN-list size.
+     *
+     * @param uuids The UUIDs of the players.
+     * @return The newest active assignment of each player, players without an active assignment are not contained.
+     * @throws SQLException If there is an issue during the database operation.
+     */
+    public List<Player2Group> findNewestActiveByPlayers(Collection<String> uuids) throws SQLException {
+        final Map<String, Player2Group> newest = new LinkedHashMap<>();
+        for (Player2Group player2Group : queryInChunks("Player2GroupRepository.findNewestActiveByPlayers", FIND_NEWEST_ACTIVE_BY_PLAYERS,
+                IN_LIST_CHUNK_SIZE, uuids, new Timestamp(System.currentTimeMillis()))) {
+            newest.putIfAbsent(player2Group.getPlayer().getUuid(), player2Group);
+        }
+        return List.copyOf(newest.values());
+    }
 
+    /**
+     * Moves one batch of outdated assignments into the archive table. An assignment is outdated if it expired
+     * before the cutoff, or if a permanent assignment created after it but before the cutoff superseded it.
+     * Assignments recorded as a player's current group are never moved.
+     * Has to be called inside a transaction, so the batch is copied and deleted atomically.
+     *
+     * @param cutoff    Only assignments outdated before this time are moved.
+     * @param batchSize The maximum number of assignments to move.
+     * @return The number of moved assignments.
+     * @throws SQLException          If there is an issue during the database operation.
+     * @throws IllegalStateException If no transaction is running on the calling thread.
+     */
+    public int archiveOutdated(Timestamp cutoff, int batchSize) throws SQLException {
+        if (!TransactionManager.isActive()) {
+            throw new IllegalStateException("Outdated assignments can only be archived inside a transaction");
+        }
+        final String table = DatabaseConfig.tablePrefix + "player2group";
+        final List<Long> ids = queryForLongs("Player2GroupRepository.archiveOutdated.select",
+                "SELECT archived.id FROM " + table + " AS archived"
+                        + " WHERE ((archived.expire_datetime IS NOT NULL AND archived.expire_datetime < ?)"
+                        + " OR EXISTS (SELECT 1 FROM " + table + " AS newer WHERE newer.player_uuid = archived.player_uuid"
+                        + " AND newer.expire_datetime IS NULL AND newer.create_date > archived.create_date AND newer.create_date < ?))"
+                        + " AND NOT EXISTS (SELECT 1 FROM " + DatabaseConfig.tablePrefix + "player_current_group AS current_group"
+                        + " WHERE current_group.player_uuid = archived.player_uuid AND current_group.assignment_id = archived.id)"
+                        + " ORDER BY archived.id LIMIT ?",
+                cutoff, cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        final Object[] params = ids.toArray();
+        executeUpdate("Player2GroupRepository.archiveOutdated.copy",
+                "INSERT INTO " + table + "_archive (id, player_uuid, group_id, expire_datetime, create_date, last_group_id)"
+                        + " SELECT id, player_uuid, group_id, expire_datetime, create_date, last_group_id FROM " + table
+                        + " WHERE id IN (" + inList(ids.size()) + ")",
+                params);
+        return executeUpdate("Player2GroupRepository.archiveOutdated.delete",
+                "DELETE FROM " + table + " WHERE id IN (" + inList(ids.size()) + ")",
+                params);
+    }
 }
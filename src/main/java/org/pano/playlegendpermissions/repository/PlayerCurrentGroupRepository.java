@@ -0,0 +1,84 @@
+package org.pano.playlegendpermissions.repository;
+
+import org.pano.playlegendpermissions.model.PlayerCurrentGroup;
+import org.pano.playlegendpermissions.store.CustomResultSet;
+import org.pano.playlegendpermissions.store.DatabaseStoreInterface;
+import org.pano.playlegendpermissions.store.DatabaseUtils;
+import org.pano.playlegendpermissions.store.Page;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Repository class for the current group assignment of every player.
+ * The table holds one row per player pointing to the active Player2Group row, so the active group
+ * is found by primary key instead of scanning the assignment history.
+ */
+public class PlayerCurrentGroupRepository extends DatabaseUtils<PlayerCurrentGroup> implements DatabaseStoreInterface<PlayerCurrentGroup, String> {
+
+    @Override
+    public PlayerCurrentGroup findOne(PlayerCurrentGroup currentGroup) throws Exception {
+        return this.findById(currentGroup.getPlayerUuid());
+    }
+
+    @Override
+    public PlayerCurrentGroup findById(String playerUuid) throws Exception {
+        try (CustomResultSet<PlayerCurrentGroup> resultSet = super.findById(PlayerCurrentGroup.class, playerUuid)) {
+            return resultSet.getResults().isEmpty() ? null : resultSet.getResults().get(0);
+        }
+    }
+
+    @Override
+    public List<PlayerCurrentGroup> findAll() throws Exception {
+        try (CustomResultSet<PlayerCurrentGroup> resultSet = super.findAll(PlayerCurrentGroup.class)) {
+            return new ArrayList<>(resultSet.getResults());
+        }
+    }
+
+    @Override
+    public Stream<PlayerCurrentGroup> streamAll() throws SQLException {
+        return streamAll(PlayerCurrentGroup.class).stream();
+    }
+
+    @Override
+    public Page<PlayerCurrentGroup> findPage(Object cursor, int pageSize) throws SQLException {
+        return findPage(PlayerCurrentGroup.class, cursor, pageSize);
+    }
+
+    @Override
+    public PlayerCurrentGroup save(PlayerCurrentGroup currentGroup) throws SQLException, IllegalAccessException {
+        upsertObjectInDatabase(currentGroup);
+        return currentGroup;
+    }
+
+    @Override
+    public PlayerCurrentGroup update(PlayerCurrentGroup currentGroup) throws SQLException, IllegalAccessException {
+        updateObjectInDatabase(currentGroup);
+        return currentGroup;
+    }
+
+    @Override
+    public List<PlayerCurrentGroup> saveAll(Collection<PlayerCurrentGroup> currentGroups) throws SQLException, IllegalAccessException {
+        upsertObjectsInDatabase(currentGroups);
+        return new ArrayList<>(currentGroups);
+    }
+
+    @Override
+    public List<PlayerCurrentGroup> updateAll(Collection<PlayerCurrentGroup> currentGroups) throws SQLException, IllegalAccessException {
+        updateObjectsInDatabase(currentGroups);
+        return new ArrayList<>(currentGroups);
+    }
+
+    /**
+     * Removes the current group assignment of a player, e.g. once all of their assignments expired.
+     *
+     * @param playerUuid The UUID of the player.
+     * @throws SQLException If there is an issue during the database operation.
+     */
+    public void deleteById(String playerUuid) throws SQLException {
+        deleteById(PlayerCurrentGroup.class, playerUuid);
+    }
+}
@@ -4,21 +4,27 @@ import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.model.Player2Group;
 import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.store.CustomResultSet;
-import org.pano.playlegendpermissions.store.DatabaseConfig;
 import org.pano.playlegendpermissions.store.DatabaseStoreInterface;
 import org.pano.playlegendpermissions.store.DatabaseUtils;
+import org.pano.playlegendpermissions.store.Page;
+import org.pano.playlegendpermissions.store.ProjectionQuery;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository class for managing Player entities in the database.
  * This class provides methods to find, save, and update Player entities.
  */
 public class PlayerRepository extends DatabaseUtils<Player> implements DatabaseStoreInterface<Player, String> {
+    private static final ProjectionQuery<Player> PLAYER_HISTORY_IN_GROUP = ProjectionQuery.select(Player.class)
+            .from(Player2Group.class)
+            .distinct()
+            .where("Player2Group.group_id = ?")
+            .keyset("uuid", false);
 
     @Override
     public Player findOne(Player player) throws Exception {
@@ -40,18 +46,37 @@ public class PlayerRepository extends DatabaseUtils<Player> implements DatabaseS
     }
 
     @Override
-    public Player save(Player player) throws Exception {
-        if (findById(player.getUuid()) != null) {
-            return update(player);
-        }
-        saveObjectToDatabase(player);
+    public Stream<Player> streamAll() throws SQLException {
+        return streamAll(Player.class).stream();
+    }
+
+    @Override
+    public Page<Player> findPage(Object cursor, int pageSize) throws SQLException {
+        return findPage(Player.class, cursor, pageSize);
+    }
+
+    @Override
+    public Player save(Player player) throws SQLException, IllegalAccessException {
+        upsertObjectInDatabase(player);
+        return player;
+    }
+
+    @Override
+    public Player update(Player player) throws SQLException, IllegalAccessException {
+        updateObjectInDatabase(player);
         return player;
     }
 
     @Override
-    public Player update(Player player){
-        // Implement the update logic.
-        return null;
+    public List<Player> saveAll(Collection<Player> players) throws SQLException, IllegalAccessException {
+        upsertObjectsInDatabase(players);
+        return new ArrayList<>(players);
+    }
+
+    @Override
+    public List<Player> updateAll(Collection<Player> players) throws SQLException, IllegalAccessException {
+        updateObjectsInDatabase(players);
+        return new ArrayList<>(players);
     }
 
     /**
@@ -62,40 +87,32 @@ public class PlayerRepository extends DatabaseUtils<Player> implements DatabaseS
      * @throws Exception If there is an issue during the database operation.
      */
     public Player findFirstByName(String playerName) throws Exception {
-        try (CustomResultSet<Player> resultSet = findByField(Player.class, Player.class.getDeclaredField("displayName"), playerName)) {
+        try (CustomResultSet<Player> resultSet = findByField(Player.class, "displayName", playerName)) {
             return resultSet.getResults().isEmpty() ? null : resultSet.getResults().get(0);
         }
     }
 
     /**
-     * Retrieves a list of Player entities who have a history in a given UserGroup.
+     * Locks the row of a player until the running transaction ends.
+     *
+     * @param uuid The UUID of the player.
+     * @return true if the player exists.
+     * @throws SQLException If there is an issue during the database operation.
+     */
+    public boolean lockById(final String uuid) throws SQLException {
+        return lockById(Player.class, uuid);
+    }
+
+    /**
+     * Retrieves one page of the Player entities who have a history in a given UserGroup, ordered by uuid.
      *
      * @param userGroup The UserGroup to check the players' history against.
-     * @return A list of Player entities.
-     * @throws Exception If there is an issue during the database operation.
+     * @param cursor    The cursor of the previous page, or null for the first page.
+     * @param pageSize  The maximum number of players on the page.
+     * @return The page of Player entities.
+     * @throws SQLException If there is an issue during the database operation.
      */
-    public List<Player> getPlayerHistoryInGroup(final UserGroup userGroup) throws Exception {
-        String sql = "SELECT DISTINCT " +
-                getPrefixedTableName(Player.class) +
-                ".uuid as Player_uuid, " +
-                getPrefixedTableName(Player.class) +
-                ".display_name as Player_displayName, " +
-                getPrefixedTableName(Player.class) +
-                ".create_date as Player_createDate " +
-                "FROM " +
-                getPrefixedTableName(Player2Group.class) +
-                generateJoinString(Player2Group.class) +
-                " WHERE " +
-                getPrefixedTableName(UserGroup.class) +
-                ".id" +
-                " = ? ";
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setLong(1, userGroup.getId());
-            final var resultSet = stmt.executeQuery();
-            try (CustomResultSet<Player> result = new CustomResultSet<>(resultSet, Player.class)) {
-                return new ArrayList<>(result.getResults());
-            }
-        }
+    public Page<Player> getPlayerHistoryInGroupPage(final UserGroup userGroup, final Object cursor, final int pageSize) throws SQLException {
+        return queryPage("PlayerRepository.getPlayerHistoryInGroupPage", routingKey(Player2Group.class, userGroup.getId()), PLAYER_HISTORY_IN_GROUP, cursor, pageSize, userGroup.getId());
     }
 }
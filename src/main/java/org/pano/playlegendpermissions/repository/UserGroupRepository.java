@@ -4,10 +4,13 @@ import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.store.CustomResultSet;
 import org.pano.playlegendpermissions.store.DatabaseStoreInterface;
 import org.pano.playlegendpermissions.store.DatabaseUtils;
+import org.pano.playlegendpermissions.store.Page;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 /**
  * Repository class for handling database operations related to the UserGroup entity.
  * This class extends the generic DatabaseUtils for UserGroup and implements the DatabaseStoreInterface.
@@ -33,10 +36,21 @@ public class UserGroupRepository extends DatabaseUtils<UserGroup> implements Dat
         }
     }
 
+    @Override
+    public Stream<UserGroup> streamAll() throws SQLException {
+        return streamAll(UserGroup.class).stream();
+    }
+
+    @Override
+    public Page<UserGroup> findPage(Object cursor, int pageSize) throws SQLException {
+        return findPage(UserGroup.class, cursor, pageSize);
+    }
+
     @Override
     public UserGroup save(UserGroup userGroup) throws SQLException, IllegalAccessException {
         if (userGroup.getId() > 0) {
-            return update(userGroup);
+            upsertObjectInDatabase(userGroup);
+            return userGroup;
         }
         final var generatedKey = saveObjectToDatabase(userGroup);
         userGroup.setId(generatedKey);
@@ -48,6 +62,32 @@ public class UserGroupRepository extends DatabaseUtils<UserGroup> implements Dat
         updateObjectInDatabase(userGroup);
         return userGroup;
     }
+
+    @Override
+    public List<UserGroup> saveAll(Collection<UserGroup> entities) throws SQLException, IllegalAccessException {
+        final List<UserGroup> newEntities = new ArrayList<>();
+        final List<UserGroup> existingEntities = new ArrayList<>();
+        for (UserGroup userGroup : entities) {
+            if (userGroup.getId() > 0) {
+                existingEntities.add(userGroup);
+            } else {
+                newEntities.add(userGroup);
+            }
+        }
+        upsertObjectsInDatabase(existingEntities);
+        final List<Long> generatedKeys = saveObjectsToDatabase(newEntities);
+        for (int i = 0; i < generatedKeys.size() && i < newEntities.size(); i++) {
+            newEntities.get(i).setId(generatedKeys.get(i));
+        }
+        return new ArrayList<>(entities);
+    }
+
+    @Override
+    public List<UserGroup> updateAll(Collection<UserGroup> entities) throws SQLException, IllegalAccessException {
+        updateObjectsInDatabase(entities);
+        return new ArrayList<>(entities);
+    }
+
     /**
      * Finds the first UserGroup entity by its name.
      *
@@ -56,7 +96,7 @@ public class UserGroupRepository extends DatabaseUtils<UserGroup> implements Dat
      * @throws Exception If there is an issue during the database operation.
      */
     public UserGroup findFirstByName(String name) throws Exception {
-        try (CustomResultSet<UserGroup> resultSet = super.findByField(UserGroup.class, UserGroup.class.getDeclaredField("groupName"), name)) {
+        try (CustomResultSet<UserGroup> resultSet = super.findByField(UserGroup.class, "groupName", name)) {
             return resultSet.getResults().isEmpty() ? null : resultSet.getResults().get(0);
         }
     }
@@ -1,15 +1,31 @@
 package org.pano.playlegendpermissions.service;
 
 import org.bukkit.Bukkit;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
+import org.pano.playlegendpermissions.exceptions.PlayerNotFoundException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.model.Player2Group;
+import org.pano.playlegendpermissions.model.PlayerCurrentGroup;
 import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.repository.Player2GroupRepository;
+import org.pano.playlegendpermissions.repository.PlayerCurrentGroupRepository;
 import org.pano.playlegendpermissions.repository.PlayerRepository;
 import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
+import org.pano.playlegendpermissions.store.TransactionManager;
+import org.pano.playlegendpermissions.store.WriteBehindQueue;
 
 import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service class for managing player-related operations in the PlaylegendPermissions plugin.
@@ -18,23 +34,40 @@ import java.sql.Timestamp;
 public class PlayerService {
     private final PlayerRepository playerRepository;
     private final Player2GroupRepository player2GroupRepository;
+    private final PlayerCurrentGroupRepository playerCurrentGroupRepository;
     private final PlayerCacheManager playerCacheManager;
+    private final WriteBehindQueue<Player, String> playerWriteQueue;
+    private final TransactionManager transactionManager;
+    private final Executor databaseExecutor;
 
     /**
      * Constructs a new PlayerService instance.
      *
      * @param playerRepository       Player repository for database operations related to players.
      * @param player2GroupRepository Player2Group repository for database operations related to player-group relationships.
+     * @param playerCurrentGroupRepository Repository of the current group assignment of every player.
      * @param playerCacheManager     Cache manager for player data.
+     * @param playerWriteQueue       Write-behind queue the player records are saved through.
+     * @param transactionManager     Transaction manager for changes spanning several statements.
+     * @param databaseExecutor       Executor for background loads, current group refreshes and the revalidation of players restored from a cache snapshot.
      */
-    public PlayerService(final PlayerRepository playerRepository, Player2GroupRepository player2GroupRepository, final PlayerCacheManager playerCacheManager) {
+    public PlayerService(final PlayerRepository playerRepository, Player2GroupRepository player2GroupRepository,
+                         final PlayerCurrentGroupRepository playerCurrentGroupRepository, final PlayerCacheManager playerCacheManager,
+                         final WriteBehindQueue<Player, String> playerWriteQueue, final TransactionManager transactionManager,
+                         final Executor databaseExecutor) {
         this.playerRepository = playerRepository;
         this.player2GroupRepository = player2GroupRepository;
+        this.playerCurrentGroupRepository = playerCurrentGroupRepository;
         this.playerCacheManager = playerCacheManager;
+        this.playerWriteQueue = playerWriteQueue;
+        this.transactionManager = transactionManager;
+        this.databaseExecutor = databaseExecutor;
     }
 
     /**
      * Retrieves a player entity based on UUID or display name.
+     * A player that is still queued for saving is returned from the write queue.
+     * While the database is unavailable, players are served from the cache, by UUID or by name.
      *
      * @param player The player object with either UUID or display name.
      * @return The retrieved player entity, or null if not found.
@@ -42,9 +75,30 @@ public class PlayerService {
      */
     public Player getPlayer(Player player) throws Exception {
         if (!player.getUuid().isEmpty()) {
-            return playerRepository.findById(player.getUuid());
+            final Player pendingPlayer = playerWriteQueue.getPending(player.getUuid());
+            if (pendingPlayer != null) {
+                return pendingPlayer;
+            }
+            try {
+                return playerRepository.findById(player.getUuid());
+            } catch (DatabaseUnavailableException e) {
+                final PlayerDAO cachedPlayer = playerCacheManager.getById(player.getUuid());
+                if (cachedPlayer == null) {
+                    throw e;
+                }
+                return new Player(cachedPlayer.getUuid(), cachedPlayer.getName());
+            }
         } else if (!player.getDisplayName().isEmpty()) {
-            return playerRepository.findFirstByName(player.getDisplayName());
+            try {
+                return playerRepository.findFirstByName(player.getDisplayName());
+            } catch (DatabaseUnavailableException e) {
+                try {
+                    final PlayerDAO cachedPlayer = playerCacheManager.getByName(player.getDisplayName());
+                    return new Player(cachedPlayer.getUuid(), cachedPlayer.getName());
+                } catch (PlayerNotFoundException notCached) {
+                    throw e;
+                }
+            }
         }
         return null;
     }
@@ -62,40 +116,244 @@ public class PlayerService {
     }
 
     /**
-     * Retrieves the active group information for a given player.
+     * Retrieves the active group information for a given player without blocking the calling thread.
+     * A player missing in the cache is loaded on the database executor, concurrent requests for the same
+     * player share one load. A player restored from a cache snapshot is returned right away and revalidated
+     * in the background.
      *
      * @param player The player whose active group is to be retrieved.
-     * @return The active group data of the player.
-     * @throws Exception If a database access error occurs.
+     * @return The future of the active group data of the player, completing with null if the player has no active group.
      */
-    public PlayerDAO getPlayersActiveGroup(Player player) throws Exception {
-        PlayerDAO playerDAO = playerCacheManager.getById(player.getUuid());
-        if (playerDAO == null) {
-            final var playerGroups = player2GroupRepository.findAllByPlayer(player);
-            for (Player2Group player2Group : playerGroups) {
-                if (isActive(player2Group)) {
-                    playerCacheManager.addToCache(toDAO(player2Group));
-                    return toDAO(player2Group);
+    public CompletableFuture<PlayerDAO> getPlayersActiveGroupAsync(Player player) {
+        final PlayerDAO playerDAO = playerCacheManager.getById(player.getUuid());
+        if (playerDAO != null) {
+            revalidateIfStale(player);
+            return CompletableFuture.completedFuture(playerDAO);
+        }
+        return loadActiveGroup(player);
+    }
+
+    /**
+     * Retrieves the active group information of many players at once without blocking the calling thread.
+     * Cached players are served from the cache, the others are read on the database executor with batched
+     * IN-list queries. The players read from the database are not cached, so listing many offline players
+     * does not evict the online ones.
+     *
+     * @param players The players whose active groups are to be retrieved.
+     * @return The future of the active group data by player UUID, in the order of the given players. Players without an active group are not contained.
+     */
+    public CompletableFuture<Map<String, PlayerDAO>> getActiveGroupsAsync(Collection<Player> players) {
+        final Map<String, PlayerDAO> cached = playerCacheManager.getAllPresent(players.stream().map(Player::getUuid).toList());
+        final Set<String> missing = new HashSet<>();
+        for (Player player : players) {
+            if (!cached.containsKey(player.getUuid())) {
+                missing.add(player.getUuid());
+            }
+        }
+        final CompletableFuture<Map<String, PlayerDAO>> read = missing.isEmpty()
+                ? CompletableFuture.completedFuture(Map.of())
+                : readActiveGroups(missing);
+        return read.thenApply(loaded -> {
+            final Map<String, PlayerDAO> activeGroups = new LinkedHashMap<>();
+            for (Player player : players) {
+                PlayerDAO playerDAO = cached.get(player.getUuid());
+                if (playerDAO != null) {
+                    revalidateIfStale(player);
+                } else {
+                    playerDAO = loaded.get(player.getUuid());
+                }
+                if (playerDAO != null) {
+                    activeGroups.put(player.getUuid(), playerDAO);
                 }
             }
+            return activeGroups;
+        });
+    }
+
+    /**
+     * Loads the active group of a player into the cache. If a load of the player is already running,
+     * its future is returned and no new load is started.
+     *
+     * @param player The player whose active group is to be loaded.
+     * @return The future of the active group data, completing with null if the player has no active group.
+     */
+    private CompletableFuture<PlayerDAO> loadActiveGroup(Player player) {
+        final CompletableFuture<PlayerDAO> load = new CompletableFuture<>();
+        final CompletableFuture<PlayerDAO> result = playerCacheManager.get(player.getUuid(), uuid -> load);
+        if (result == load) {
+            try {
+                databaseExecutor.execute(() -> {
+                    try {
+                        final Player2Group activeGroup = findActiveGroup(player);
+                        load.complete(activeGroup != null ? toDAO(activeGroup) : null);
+                    } catch (Exception e) {
+                        load.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                load.completeExceptionally(e);
+            }
         }
-        return playerDAO;
+        return result;
     }
 
     /**
-     * Saves a player entity to the database.
+     * Reads the active groups of several players on the database executor, without caching them.
+     * The recorded current groups are read first; players whose current group is missing or expired are resolved
+     * with one batched query of the assignment history, and their current group is recorded anew off the read path.
      *
-     * @param player The player entity to save.
-     * @return The saved player entity.
+     * @param uuids The UUIDs of the players.
+     * @return The future of the active group data by player UUID, players without an active group are not contained.
+     */
+    private CompletableFuture<Map<String, PlayerDAO>> readActiveGroups(Set<String> uuids) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                final Map<String, PlayerDAO> activeGroups = new HashMap<>();
+                for (Player2Group currentGroup : player2GroupRepository.findActiveByPlayers(uuids)) {
+                    activeGroups.putIfAbsent(currentGroup.getPlayer().getUuid(), toDAO(currentGroup));
+                }
+                final Set<String> misses = new HashSet<>(uuids);
+                misses.removeAll(activeGroups.keySet());
+                if (!misses.isEmpty()) {
+                    for (Player2Group activeGroup : player2GroupRepository.findNewestActiveByPlayers(misses)) {
+                        activeGroups.put(activeGroup.getPlayer().getUuid(), toDAO(activeGroup));
+                        scheduleCurrentGroupRefresh(activeGroup.getPlayer(), true);
+                    }
+                }
+                return activeGroups;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, databaseExecutor);
+    }
+
+    /**
+     * Schedules the revalidation of a cached player that was restored from a cache snapshot.
+     * The cached entry is replaced by the active group read from the database, or removed if the player
+     * has none. While the database is unavailable the entry stays stale and is revalidated on a later access.
+     *
+     * @param player The cached player.
+     */
+    private void revalidateIfStale(Player player) {
+        if (!playerCacheManager.takeStale(player.getUuid())) {
+            return;
+        }
+        databaseExecutor.execute(() -> {
+            try {
+                final Player2Group activeGroup = findActiveGroup(player);
+                if (activeGroup != null) {
+                    playerCacheManager.addToCache(toDAO(activeGroup));
+                } else {
+                    deleteFromCache(player.getUuid());
+                }
+            } catch (DatabaseUnavailableException e) {
+                playerCacheManager.markStale(player.getUuid());
+            } catch (Exception e) {
+                deleteFromCache(player.getUuid());
+            }
+        });
+    }
+
+    /**
+     * Reads the active group assignment of a player from the database, bypassing the cache.
+     * The assignment recorded as the player's current group is used while it is active; once it expired
+     * the newest active assignment is read from the assignment history. The read takes no locks and writes
+     * nothing, a stale current group is recorded anew by a refresh on the database executor.
+     *
+     * @param player The player whose active group is to be retrieved.
+     * @return The newest active assignment, or null if the player has none.
+     * @throws Exception If a database access error occurs.
+     */
+    private Player2Group findActiveGroup(Player player) throws Exception {
+        final Player2Group currentGroup = player2GroupRepository.findCurrentByPlayer(player);
+        if (currentGroup != null && isActive(currentGroup)) {
+            return currentGroup;
+        }
+        final Player2Group activeGroup = findNewestActiveGroup(player);
+        if (activeGroup != null || currentGroup != null) {
+            scheduleCurrentGroupRefresh(player, currentGroup != null);
+        }
+        return activeGroup;
+    }
+
+    /**
+     * Reads the newest active assignment of a player from the assignment history.
+     *
+     * @param player The player whose active group is to be retrieved.
+     * @return The newest active assignment, or null if the player has none.
+     * @throws Exception If a database access error occurs.
+     */
+    private Player2Group findNewestActiveGroup(Player player) throws Exception {
+        for (Player2Group player2Group : player2GroupRepository.findAllByPlayer(player)) {
+            if (isActive(player2Group)) {
+                return player2Group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records the current group of a player on the database executor, off the read path.
+     * A failed or rejected refresh is not retried, the next read finds the stale current group and schedules it again.
+     *
+     * @param player   The player whose current group is to be recomputed.
+     * @param recorded Whether a current group is recorded for the player.
+     */
+    private void scheduleCurrentGroupRefresh(Player player, boolean recorded) {
+        try {
+            databaseExecutor.execute(() -> {
+                try {
+                    refreshCurrentGroup(player, recorded);
+                } catch (Exception e) {
+                    // the current group stays stale until the next read schedules another refresh
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the executor is shutting down, the next start recomputes the current group on its first read
+        }
+    }
+
+    /**
+     * Recomputes the current group of a player from the assignment history and records it.
+     *
+     * @param player   The player whose current group is to be recomputed.
+     * @param recorded Whether a current group is recorded for the player and has to be removed if none is active.
+     * @return The newest active assignment, or null if the player has none.
      * @throws Exception If a database access error occurs.
      */
-    public Player savePlayer(Player player) throws Exception {
-        player = playerRepository.save(player);
+    private Player2Group refreshCurrentGroup(Player player, boolean recorded) throws Exception {
+        return transactionManager.inTransaction(() -> {
+            playerRepository.lockById(player.getUuid());
+            final Player2Group activeGroup = findNewestActiveGroup(player);
+            if (activeGroup != null) {
+                playerCurrentGroupRepository.save(new PlayerCurrentGroup(player.getUuid(), activeGroup.getId()));
+                return activeGroup;
+            }
+            if (recorded) {
+                playerCurrentGroupRepository.deleteById(player.getUuid());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Queues a player entity for saving. Repeated saves of the same player are coalesced
+     * and written in batches by the write-behind queue.
+     *
+     * @param player The player entity to save.
+     * @return The queued player entity.
+     * @throws java.util.concurrent.RejectedExecutionException If the write-behind queue is full.
+     */
+    public Player savePlayer(Player player) {
+        playerWriteQueue.enqueue(player);
         return player;
     }
 
     /**
      * Adds a player to a group with an optional expiration date.
+     * The player's row is locked while the previous group is read and the new assignment is written
+     * together with the player's current group, so concurrent group changes of the same player are
+     * applied one after another.
      *
      * @param player     The player to add to the group.
      * @param group      The group to which the player is added.
@@ -103,8 +361,17 @@ public class PlayerService {
      * @throws Exception If a database access error occurs.
      */
     public void addPlayerToGroup(Player player, UserGroup group, Timestamp expireDate) throws Exception {
-        PlayerDAO playerDAO = getPlayersActiveGroup(player);
-        final var player2Group = player2GroupRepository.save(new Player2Group(0, player, group, expireDate, new Timestamp(System.currentTimeMillis()), getLastUserGroupId(playerDAO)));
+        playerWriteQueue.flush(player.getUuid());
+        final var player2Group = transactionManager.inTransaction(() -> {
+            playerRepository.lockById(player.getUuid());
+            final Player2Group currentGroup = player2GroupRepository.findCurrentByPlayer(player);
+            final Player2Group activeGroup = currentGroup != null && isActive(currentGroup) ? currentGroup : findNewestActiveGroup(player);
+            final Player2Group assignment = player2GroupRepository.save(new Player2Group(0, player, group, expireDate, new Timestamp(System.currentTimeMillis()), getLastUserGroupId(activeGroup)));
+            if (isActive(assignment)) {
+                playerCurrentGroupRepository.save(new PlayerCurrentGroup(player.getUuid(), assignment.getId()));
+            }
+            return assignment;
+        });
         addToCache(toDAO(player2Group));
     }
     public void addPlayerToGroup(Player player, UserGroup group) throws Exception {
@@ -125,15 +392,15 @@ public class PlayerService {
     }
 
     /**
-     * Retrieves the last user group ID associated with the given PlayerDAO.
-     * If the player is not null, returns the current group ID. Otherwise, returns 0.
+     * Retrieves the last user group ID of the given active group assignment.
+     * If the assignment is not null, returns its group ID. Otherwise, returns 0.
      *
-     * @param player The PlayerDAO instance whose last user group ID is to be retrieved.
-     * @return Long representing the last user group ID or 0 if the player is null.
+     * @param activeGroup The active Player2Group of the player, or null.
+     * @return Long representing the last user group ID or 0 if the assignment is null.
      */
-    private Long getLastUserGroupId(PlayerDAO player) {
-        if (player != null) {
-            return player.getCurrentGroupId();
+    private Long getLastUserGroupId(Player2Group activeGroup) {
+        if (activeGroup != null) {
+            return activeGroup.getUserGroup().getId();
         }
         return 0L;
     }
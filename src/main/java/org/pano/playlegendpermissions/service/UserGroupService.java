@@ -2,6 +2,7 @@ package org.pano.playlegendpermissions.service;
 
 import org.pano.playlegendpermissions.config.localization.LocalizationManager;
 import org.pano.playlegendpermissions.config.localization.MessageKey;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
 import org.pano.playlegendpermissions.exceptions.GroupAlreadyExistsException;
 import org.pano.playlegendpermissions.exceptions.GroupNotFoundException;
 import org.pano.playlegendpermissions.model.Player;
@@ -10,9 +11,9 @@ import org.pano.playlegendpermissions.repository.PlayerRepository;
 import org.pano.playlegendpermissions.repository.UserGroupRepository;
 import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
 import org.pano.playlegendpermissions.service.cache.UserGroupCacheManager;
+import org.pano.playlegendpermissions.store.Page;
 
 import java.sql.SQLException;
-import java.util.List;
 
 /**
  * Service class for managing user groups in the PlayLegendPermissions system.
@@ -71,14 +72,19 @@ public class UserGroupService {
     /**
      * Retrieves a user group by its name.
      * If the group is not found, a GroupNotFoundException is thrown.
+     * Cached groups are served while the database is unavailable, other names fail with a DatabaseUnavailableException
+     * instead of being reported as unknown.
      *
      * @param groupName The name of the group to retrieve.
      * @return The retrieved user group.
-     * @throws GroupNotFoundException If the group is not found.
+     * @throws GroupNotFoundException       If the group is not found.
+     * @throws DatabaseUnavailableException If the group is not cached and the database is unavailable.
      */
-    public UserGroup getGroupByName(final String groupName) throws GroupNotFoundException {
+    public UserGroup getGroupByName(final String groupName) throws GroupNotFoundException, DatabaseUnavailableException {
         try {
             return userGroupCacheManager.getByName(groupName);
+        } catch (DatabaseUnavailableException exception) {
+            throw exception;
         } catch (Exception exception) {
             throw new GroupNotFoundException(localization.getFormattedMessage(MessageKey.GROUP_NOT_FOUND, groupName));
         }
@@ -101,26 +107,28 @@ public class UserGroupService {
     }
 
     /**
-     * Retrieves a list of players belonging to a specified group.
+     * Retrieves one page of the players belonging to a specified group, ordered by uuid.
      *
      * @param groupName The name of the group.
-     * @return A list of players in the specified group.
+     * @param cursor    The cursor of the previous page, or null for the first page.
+     * @param pageSize  The maximum number of players on the page.
+     * @return A page of players in the specified group.
      * @throws Exception If an error occurs during retrieval.
      */
-    public List<Player> getPlayerByGroupName(final String groupName) throws Exception {
+    public Page<Player> getPlayerPageByGroupName(final String groupName, final Object cursor, final int pageSize) throws Exception {
         final UserGroup userGroup = getGroupByName(groupName);
-        return playerRepository.getPlayerHistoryInGroup(userGroup);
+        return playerRepository.getPlayerHistoryInGroupPage(userGroup, cursor, pageSize);
     }
 
     /**
      * Updates the cache with the latest information of a specific user group.
+     * Only the cached members of the group are touched.
      *
      * @param userGroup The user group with updated information.
      */
     private void updateCacheByGroup(final UserGroup userGroup) {
-        playerCacheManager.getAll().stream().filter(playerDAO -> playerDAO.getCurrentGroupName().equalsIgnoreCase(userGroup.getGroupName())).forEach(playerDAO -> {
+        playerCacheManager.getByGroupId(userGroup.getId()).forEach(playerDAO -> {
             playerDAO.setCurrentGroupName(userGroup.getGroupName());
-            playerDAO.setCurrentGroupId(userGroup.getId());
             playerDAO.setCurrentGroupPrefix(userGroup.getPrefix());
             playerCacheManager.addToCache(playerDAO);
         });
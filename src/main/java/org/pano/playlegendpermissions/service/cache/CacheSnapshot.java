@@ -0,0 +1,199 @@
+package org.pano.playlegendpermissions.service.cache;
+
+import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
+import org.pano.playlegendpermissions.model.UserGroup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Binary snapshot of the group and player caches for warm restarts.
+ * The snapshot is written to a temporary file that atomically replaces the previous one, and read back
+ * through a memory-mapped buffer. Snapshots older than the maximum age, or written by another format
+ * version, are ignored. Player entries whose group already expired are skipped, all other entries are
+ * marked for lazy revalidation when they are loaded.
+ * <p>
+ * Layout: magic, format version, creation time, the groups (id, name, prefix) and the players
+ * (all fields of {@link PlayerDAO}). Strings are stored as length and UTF-8 bytes, null values
+ * are stored with a presence flag.
+ */
+public class CacheSnapshot {
+    private static final int MAGIC = 0x50504552;
+    private static final int FORMAT_VERSION = 1;
+    /** Smallest possible group record: id and two null strings. */
+    private static final int MIN_GROUP_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    /** Smallest possible player record: four null strings and five absent numbers. */
+    private static final int MIN_PLAYER_BYTES = 4 * Integer.BYTES + 5;
+    private final File file;
+    private final long maxAgeMillis;
+    private final Logger logger;
+
+    /**
+     * Creates a new CacheSnapshot.
+     *
+     * @param file         The snapshot file.
+     * @param maxAgeMillis Snapshots older than this are not loaded.
+     * @param logger       Logger for reporting failed reads and writes.
+     */
+    public CacheSnapshot(final File file, final long maxAgeMillis, final Logger logger) {
+        this.file = file;
+        this.maxAgeMillis = maxAgeMillis;
+        this.logger = logger;
+    }
+
+    /**
+     * Writes the current content of both caches to the snapshot file.
+     *
+     * @param userGroupCacheManager The group cache.
+     * @param playerCacheManager    The player cache.
+     */
+    public synchronized void write(final UserGroupCacheManager userGroupCacheManager, final PlayerCacheManager playerCacheManager) {
+        final List<UserGroup> groups = userGroupCacheManager.getAll();
+        final List<PlayerDAO> players = playerCacheManager.getAll();
+        final File temporaryFile = new File(file.getPath() + ".tmp");
+        try {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (OutputStream fileOut = Files.newOutputStream(temporaryFile.toPath());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(groups.size());
+                for (UserGroup group : groups) {
+                    out.writeLong(group.getId());
+                    writeString(out, group.getGroupName());
+                    writeString(out, group.getPrefix());
+                }
+                out.writeInt(players.size());
+                for (PlayerDAO player : players) {
+                    writeString(out, player.getUuid());
+                    writeLong(out, player.getPlayer2groupId());
+                    writeString(out, player.getName());
+                    writeLong(out, player.getCurrentGroupId());
+                    writeString(out, player.getCurrentGroupName());
+                    writeString(out, player.getCurrentGroupPrefix());
+                    writeLong(out, player.getCurrentGroupExpire() != null ? player.getCurrentGroupExpire().getTime() : null);
+                    writeLong(out, player.getLastGroupId());
+                    writeLong(out, player.getCreateDate() != null ? player.getCreateDate().getTime() : null);
+                }
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Could not write cache snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the snapshot file into both caches. Loaded players are marked for revalidation.
+     *
+     * @param userGroupCacheManager The group cache.
+     * @param playerCacheManager    The player cache.
+     * @return true if a valid snapshot was loaded.
+     */
+    public boolean load(final UserGroupCacheManager userGroupCacheManager, final PlayerCacheManager playerCacheManager) {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                logger.warning("Ignoring cache snapshot with unknown format");
+                return false;
+            }
+            final long createdAt = buffer.getLong();
+            final long now = System.currentTimeMillis();
+            if (now - createdAt > maxAgeMillis) {
+                return false;
+            }
+
+            final int groupCount = readCount(buffer, MIN_GROUP_BYTES);
+            final List<UserGroup> groups = new ArrayList<>(groupCount);
+            for (int i = 0; i < groupCount; i++) {
+                groups.add(new UserGroup(buffer.getLong(), readString(buffer), readString(buffer)));
+            }
+            final int playerCount = readCount(buffer, MIN_PLAYER_BYTES);
+            final List<PlayerDAO> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                final PlayerDAO player = new PlayerDAO(readString(buffer), readLong(buffer), readString(buffer), readLong(buffer),
+                        readString(buffer), readString(buffer), readTimestamp(buffer), readLong(buffer), readTimestamp(buffer));
+                if (player.getCurrentGroupExpire() == null || player.getCurrentGroupExpire().getTime() > now) {
+                    players.add(player);
+                }
+            }
+
+            groups.forEach(userGroupCacheManager::addToCache);
+            playerCacheManager.addSnapshotToCache(players);
+            logger.info("Loaded " + groups.size() + " groups and " + players.size() + " players from the cache snapshot");
+            return true;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            logger.warning("Could not read cache snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeLong(final DataOutputStream out, final Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Reads a record count and checks that the remaining bytes can hold that many records before a list is sized for them.
+     */
+    private static int readCount(final MappedByteBuffer buffer, final int minRecordBytes) {
+        final int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / minRecordBytes) {
+            throw new IllegalArgumentException("Record count " + count + " does not fit the remaining " + buffer.remaining() + " bytes");
+        }
+        return count;
+    }
+
+    private static String readString(final MappedByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds the remaining " + buffer.remaining() + " bytes");
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Long readLong(final MappedByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getLong() : null;
+    }
+
+    private static Timestamp readTimestamp(final MappedByteBuffer buffer) {
+        final Long millis = readLong(buffer);
+        return millis != null ? new Timestamp(millis) : null;
+    }
+}
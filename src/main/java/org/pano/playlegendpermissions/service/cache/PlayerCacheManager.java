@@ -1,5 +1,6 @@
 package org.pano.playlegendpermissions.service.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.annotations.VisibleForTesting;
@@ -7,27 +8,46 @@ import jdk.jshell.spi.ExecutionControl;
 import org.pano.playlegendpermissions.exceptions.PlayerNotFoundException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Implementation of the CacheableObject Interface for Player (PlayerDAO)
+ * Next to the cache a case-insensitive index from player name to UUID is kept, it is updated when players
+ * are added, replaced, removed or evicted. A reverse index from group id to the UUIDs of the cached members
+ * is maintained the same way, so group changes only touch the members of the group.
+ * The players are held in an asynchronous cache, concurrent loads of the same player share one in-flight load.
  */
 public class PlayerCacheManager implements CacheableObject<PlayerDAO, String> {
     private final static int MAX_SIZE = 10000;
     private final static int EXPIRE_IN_MIN = 60;
+    private final AsyncCache<String, PlayerDAO> asyncPlayerCache;
     private final Cache<String, PlayerDAO> playerCache;
+    private final Set<String> staleIds = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> nameIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> groupMembers = new ConcurrentHashMap<>();
 
 
     public PlayerCacheManager() {
-        this.playerCache = Caffeine.newBuilder()
+        this.asyncPlayerCache = Caffeine.newBuilder()
                 .expireAfterWrite(EXPIRE_IN_MIN, TimeUnit.MINUTES)
                 .maximumSize(MAX_SIZE)
-                .build();
+                .executor(Runnable::run)
+                .<String, PlayerDAO>removalListener((id, player, cause) -> unindex(id, player))
+                .buildAsync();
+        this.playerCache = asyncPlayerCache.synchronous();
     }
     @VisibleForTesting
-    protected PlayerCacheManager(Cache<String, PlayerDAO> playerCache) {
-        this.playerCache= playerCache;
+    protected PlayerCacheManager(AsyncCache<String, PlayerDAO> asyncPlayerCache) {
+        this.asyncPlayerCache = asyncPlayerCache;
+        this.playerCache = asyncPlayerCache.synchronous();
     }
 
     @Override
@@ -40,11 +60,27 @@ public class PlayerCacheManager implements CacheableObject<PlayerDAO, String> {
         return playerCache.getIfPresent(id);
     }
 
+    /**
+     * Looks up a cached player by name, ignoring case.
+     *
+     * @param name The name of the player.
+     * @return The cached player.
+     * @throws PlayerNotFoundException If no cached player has this name.
+     */
     @Override
     public PlayerDAO getByName(String name) throws PlayerNotFoundException {
-        return playerCache.asMap().values().stream()
-                .filter(player -> player.getName().equals(name))
-                .findFirst().orElseThrow(PlayerNotFoundException::new);
+        if (name == null) {
+            throw new PlayerNotFoundException();
+        }
+        final String id = nameIndex.get(nameKey(name));
+        final PlayerDAO player = id != null ? playerCache.getIfPresent(id) : null;
+        if (player == null || player.getName() == null || !player.getName().equalsIgnoreCase(name)) {
+            if (id != null) {
+                nameIndex.remove(nameKey(name), id);
+            }
+            throw new PlayerNotFoundException();
+        }
+        return player;
     }
 
     @Override
@@ -55,10 +91,147 @@ public class PlayerCacheManager implements CacheableObject<PlayerDAO, String> {
     @Override
     public void addToCache(PlayerDAO player) {
         playerCache.put(player.getUuid(), player);
+        index(player);
+        staleIds.remove(player.getUuid());
+    }
+
+    /**
+     * Returns the cached players among the given ids.
+     *
+     * @param ids The UUIDs to look up.
+     * @return The cached players by UUID, missing ids are not contained.
+     */
+    public Map<String, PlayerDAO> getAllPresent(Collection<String> ids) {
+        return playerCache.getAllPresent(ids);
+    }
+
+    /**
+     * Adds several players to the cache at once.
+     *
+     * @param players The players to cache.
+     */
+    public void addAllToCache(Collection<PlayerDAO> players) {
+        for (PlayerDAO player : players) {
+            addToCache(player);
+        }
+    }
+
+    /**
+     * Adds players restored from a cache snapshot. They are served like any other cached player,
+     * but are marked stale until they were revalidated against the database.
+     *
+     * @param players The restored players.
+     */
+    public void addSnapshotToCache(Collection<PlayerDAO> players) {
+        for (PlayerDAO player : players) {
+            playerCache.put(player.getUuid(), player);
+            index(player);
+            staleIds.add(player.getUuid());
+        }
+    }
+
+    /**
+     * Clears the stale mark of a cached player.
+     *
+     * @param id The UUID of the player.
+     * @return true if the player was marked stale and has to be revalidated by the caller.
+     */
+    public boolean takeStale(String id) {
+        return staleIds.remove(id);
+    }
+
+    /**
+     * Marks a cached player as stale again, e.g. after its revalidation failed.
+     *
+     * @param id The UUID of the player.
+     */
+    public void markStale(String id) {
+        if (playerCache.getIfPresent(id) != null) {
+            staleIds.add(id);
+        }
+    }
+
+    /**
+     * Returns the cached player or loads it. Concurrent calls for the same id share one in-flight load,
+     * the loader is only called if no load of the player is running.
+     * A load completing with null or failing is not cached.
+     *
+     * @param id     The UUID of the player.
+     * @param loader Starts the load of a missing player.
+     * @return The cached player, or the future of the running load.
+     */
+    public CompletableFuture<PlayerDAO> get(String id, Function<String, CompletableFuture<PlayerDAO>> loader) {
+        return asyncPlayerCache.get(id, (key, executor) -> {
+            final CompletableFuture<PlayerDAO> load = loader.apply(key);
+            load.thenAccept(this::indexLoaded);
+            return load;
+        });
+    }
+
+    /**
+     * Returns the cached players whose current group is the given group, without copying the whole cache.
+     *
+     * @param groupId The id of the group.
+     * @return The cached members of the group.
+     */
+    public List<PlayerDAO> getByGroupId(Long groupId) {
+        final Set<String> members = groupMembers.get(groupId);
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream()
+                .map(playerCache::getIfPresent)
+                .filter(player -> player != null && groupId.equals(player.getCurrentGroupId()))
+                .toList();
     }
 
     @Override
     public void removeById(String id) {
         playerCache.invalidate(id);
+        staleIds.remove(id);
+    }
+
+    private void indexLoaded(PlayerDAO player) {
+        if (player != null) {
+            index(player);
+            staleIds.remove(player.getUuid());
+        }
+    }
+
+    private void index(PlayerDAO player) {
+        if (player.getName() != null) {
+            nameIndex.put(nameKey(player.getName()), player.getUuid());
+        }
+        if (player.getCurrentGroupId() != null) {
+            groupMembers.compute(player.getCurrentGroupId(), (groupId, members) -> {
+                final Set<String> groupSet = members != null ? members : ConcurrentHashMap.newKeySet();
+                groupSet.add(player.getUuid());
+                return groupSet;
+            });
+        }
+    }
+
+    /**
+     * Removes the name and group membership of a replaced or removed player from the indexes, unless the
+     * player is still cached with the same name or group.
+     */
+    private void unindex(String id, PlayerDAO removed) {
+        if (id == null || removed == null) {
+            return;
+        }
+        final PlayerDAO current = playerCache.getIfPresent(id);
+        if (removed.getName() != null && (current == null || current.getName() == null || !current.getName().equalsIgnoreCase(removed.getName()))) {
+            nameIndex.remove(nameKey(removed.getName()), id);
+        }
+        if (removed.getCurrentGroupId() != null && (current == null || !removed.getCurrentGroupId().equals(current.getCurrentGroupId()))) {
+            groupMembers.computeIfPresent(removed.getCurrentGroupId(), (groupId, members) -> {
+                members.remove(id);
+                return members.isEmpty() ? null : members;
+            });
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
     }
 }
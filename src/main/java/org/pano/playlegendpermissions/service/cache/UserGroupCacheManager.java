@@ -8,15 +8,27 @@ import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.repository.UserGroupRepository;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of the CacheableObject Interface for UserGroups
+ * Groups are looked up by name through a case-insensitive index. Names that are not found in the database
+ * are remembered for a short time, so repeated lookups of unknown groups do not reach the database.
+ * The remembered unknown names are local to this server: a group created on another server sharing the
+ * database is only found here once the entry expired, or after a group created here or a reload of the
+ * cache cleared it.
  */
 public class UserGroupCacheManager implements CacheableObject<UserGroup, Long> {
     private final static int MAX_SIZE = 1000;
     private final static int EXPIRE_IN_MIN = 60;
+    private final static int MISSING_MAX_SIZE = 1000;
+    private final static int MISSING_EXPIRE_IN_SEC = 30;
     private final Cache<Long, UserGroup> userGroupCache;
+    private final Cache<String, Boolean> missingNames;
+    private final Map<String, Long> nameIndex = new ConcurrentHashMap<>();
     private final UserGroupRepository userGroupRepository;
 
     public UserGroupCacheManager(final UserGroupRepository userGroupRepository) {
@@ -25,18 +37,23 @@ public class UserGroupCacheManager implements CacheableObject<UserGroup, Long> {
         this.userGroupCache = Caffeine.newBuilder()
                 .expireAfterWrite(EXPIRE_IN_MIN, TimeUnit.MINUTES)
                 .maximumSize(MAX_SIZE)
+                .executor(Runnable::run)
+                .<Long, UserGroup>removalListener((id, group, cause) -> unindex(id, group))
                 .build(userGroupRepository::findById);
+        this.missingNames = createMissingNamesCache();
 
     }
     @VisibleForTesting
     protected UserGroupCacheManager(final UserGroupRepository userGroupRepository, Cache<Long, UserGroup> userGroupCache) {
         this.userGroupRepository = userGroupRepository;
         this.userGroupCache = userGroupCache;
+        this.missingNames = createMissingNamesCache();
     }
 
     @Override
     public void loadIntoCache() throws Exception {
         userGroupRepository.findAll().forEach(this::addToCache);
+        missingNames.invalidateAll();
     }
 
     @Override
@@ -44,20 +61,39 @@ public class UserGroupCacheManager implements CacheableObject<UserGroup, Long> {
         return userGroupCache.getIfPresent(id);
     }
 
+    /**
+     * Looks up a group by name, ignoring case. Groups missing in the cache are read from the database,
+     * names that are unknown there as well are not looked up again for a short time.
+     *
+     * @param name The name of the group.
+     * @return The group.
+     * @throws GroupNotFoundException If no group has this name.
+     * @throws Exception              If a database access error occurs.
+     */
     @Override
     public UserGroup getByName(String name) throws Exception {
-        try {
-            return userGroupCache.asMap().values().stream()
-                    .filter(group -> group.getGroupName().equals(name))
-                    .findFirst().orElseThrow(GroupNotFoundException::new);
-        } catch (GroupNotFoundException e) {
-            UserGroup userGroup = userGroupRepository.findFirstByName(name);
-            if (userGroup != null) {
-                addToCache(userGroup);
-                return userGroup;
-            }
-            throw e;
+        if (name == null) {
+            throw new GroupNotFoundException();
         }
+        final String key = nameKey(name);
+        final Long id = nameIndex.get(key);
+        final UserGroup cachedGroup = id != null ? userGroupCache.getIfPresent(id) : null;
+        if (cachedGroup != null && name.equalsIgnoreCase(cachedGroup.getGroupName())) {
+            return cachedGroup;
+        }
+        if (id != null) {
+            nameIndex.remove(key, id);
+        }
+        if (missingNames.getIfPresent(key) != null) {
+            throw new GroupNotFoundException();
+        }
+        final UserGroup userGroup = userGroupRepository.findFirstByName(name);
+        if (userGroup == null) {
+            missingNames.put(key, Boolean.TRUE);
+            throw new GroupNotFoundException();
+        }
+        addToCache(userGroup);
+        return userGroup;
     }
 
     @Override
@@ -65,13 +101,48 @@ public class UserGroupCacheManager implements CacheableObject<UserGroup, Long> {
         return userGroupCache.asMap().values().stream().toList();
     }
 
+    /**
+     * Adds a group to the cache and the name index. A name that was remembered as unknown becomes resolvable
+     * right away.
+     *
+     * @param userGroup The group to cache.
+     */
     @Override
     public void addToCache(UserGroup userGroup) {
         userGroupCache.put(userGroup.getId(), userGroup);
+        if (userGroup.getGroupName() != null) {
+            nameIndex.put(nameKey(userGroup.getGroupName()), userGroup.getId());
+            missingNames.invalidate(nameKey(userGroup.getGroupName()));
+        }
     }
 
     @Override
     public void removeById(Long id) {
         userGroupCache.invalidate(id);
     }
+
+    private Cache<String, Boolean> createMissingNamesCache() {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(MISSING_EXPIRE_IN_SEC, TimeUnit.SECONDS)
+                .maximumSize(MISSING_MAX_SIZE)
+                .build();
+    }
+
+    /**
+     * Removes the name of a replaced or removed group from the index, unless the group is still
+     * cached under the same name.
+     */
+    private void unindex(Long id, UserGroup removed) {
+        if (id == null || removed == null || removed.getGroupName() == null) {
+            return;
+        }
+        final UserGroup current = userGroupCache.getIfPresent(id);
+        if (current == null || !removed.getGroupName().equalsIgnoreCase(current.getGroupName())) {
+            nameIndex.remove(nameKey(removed.getGroupName()), id);
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
 }
@@ -14,6 +14,8 @@ import org.pano.playlegendpermissions.service.command.executor.InfoCommandExecut
 import org.pano.playlegendpermissions.service.command.executor.PlayerCommandExecutor;
 import org.pano.playlegendpermissions.service.command.executor.SignCommandExecutor;
 
+import java.util.concurrent.Executor;
+
 import static org.pano.playlegendpermissions.config.localization.MessageKey.*;
 
 /**
@@ -31,17 +33,20 @@ public class PluginCommandExecutor implements CommandExecutor {
     /**
      * Constructs a new PluginCommandExecutor with the necessary services and localization manager.
      *
-     * @param javaPlugin       The JavaPlugin instance.
-     * @param userGroupService The service for user group operations.
-     * @param playerService    The service for player operations.
-     * @param localization     The manager for localization and message formatting.
+     * @param javaPlugin         The JavaPlugin instance.
+     * @param userGroupService   The service for user group operations.
+     * @param playerService      The service for player operations.
+     * @param localization       The manager for localization and message formatting.
+     * @param databaseExecutor   The executor for blocking database work.
+     * @param mainThreadExecutor The executor for Bukkit API calls.
      */
-    public PluginCommandExecutor(JavaPlugin javaPlugin, UserGroupService userGroupService, PlayerService playerService, LocalizationManager localization) {
+    public PluginCommandExecutor(JavaPlugin javaPlugin, UserGroupService userGroupService, PlayerService playerService, LocalizationManager localization,
+                                 Executor databaseExecutor, Executor mainThreadExecutor) {
         this.localization = localization;
-        this.infoCommandExecutor = new InfoCommandExecutor(playerService, localization);
-        this.playerCommandExecutor = new PlayerCommandExecutor(javaPlugin, userGroupService, playerService, localization);
-        this.groupCommandExecutor = new GroupCommandExecutor(userGroupService, playerService, localization, javaPlugin);
-        this.signCommandExecutor = new SignCommandExecutor(playerService, localization);
+        this.infoCommandExecutor = new InfoCommandExecutor(playerService, localization, mainThreadExecutor);
+        this.playerCommandExecutor = new PlayerCommandExecutor(javaPlugin, userGroupService, playerService, localization, databaseExecutor, mainThreadExecutor);
+        this.groupCommandExecutor = new GroupCommandExecutor(userGroupService, playerService, localization, javaPlugin, databaseExecutor, mainThreadExecutor);
+        this.signCommandExecutor = new SignCommandExecutor(playerService, localization, mainThreadExecutor);
     }
 
     /**
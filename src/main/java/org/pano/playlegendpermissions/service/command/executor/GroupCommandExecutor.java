@@ -13,36 +13,48 @@ import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.service.PlayerService;
 import org.pano.playlegendpermissions.service.UserGroupService;
 import org.pano.playlegendpermissions.service.command.CommandOption;
+import org.pano.playlegendpermissions.store.Page;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 import static org.pano.playlegendpermissions.config.localization.MessageKey.*;
 
 /**
  * Command executor for handling group-related commands in the PlaylegendPermissions plugin.
+ * The database work of a command runs on the database executor, responses are sent from the main thread.
  */
 public class GroupCommandExecutor implements CommandExecutor {
-
+    private static final int LIST_PLAYER_PAGE_SIZE = 500;
 
     private final UserGroupService userGroupService;
     private final PlayerService playerService;
     private final LocalizationManager localization;
     private final Logger logger;
+    private final Executor databaseExecutor;
+    private final Executor mainThreadExecutor;
 
     /**
      * Constructs a GroupCommandExecutor with the necessary services and localization manager.
      *
-     * @param userGroupService The service for user group operations.
-     * @param playerService    The service for player operations.
-     * @param localization     The manager for localization and message formatting.
-     * @param javaPlugin       The JavaPlugin instance.
+     * @param userGroupService   The service for user group operations.
+     * @param playerService      The service for player operations.
+     * @param localization       The manager for localization and message formatting.
+     * @param javaPlugin         The JavaPlugin instance.
+     * @param databaseExecutor   The executor for blocking database work.
+     * @param mainThreadExecutor The executor for Bukkit API calls.
      */
-    public GroupCommandExecutor(UserGroupService userGroupService, PlayerService playerService, LocalizationManager localization, JavaPlugin javaPlugin) {
+    public GroupCommandExecutor(UserGroupService userGroupService, PlayerService playerService, LocalizationManager localization, JavaPlugin javaPlugin,
+                                Executor databaseExecutor, Executor mainThreadExecutor) {
         this.userGroupService = userGroupService;
         this.playerService = playerService;
         this.localization = localization;
         this.logger = javaPlugin.getLogger();
+        this.databaseExecutor = databaseExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
     }
 
     /**
@@ -58,7 +70,7 @@ public class GroupCommandExecutor implements CommandExecutor {
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, String[] args) {
         final Optional<CommandOption> commandOption = CommandOption.getSubCommandOption(args[0]);
         return commandOption.map(option -> switch (option) {
-            case CREATE_GROUP -> handleCreateGroup(args, sender);
+            case CREATE_GROUP -> runAsync(() -> handleCreateGroup(args, sender));
             case GROUP -> handleUserGroupCommand(args, sender);
             default -> handleDefault(sender);
         }).orElse(false);
@@ -68,58 +80,92 @@ public class GroupCommandExecutor implements CommandExecutor {
         final Optional<CommandOption> commandOption = CommandOption.getSubCommandOption(args[2]);
         String groupName = args[1];
         return commandOption.map(option -> switch (option) {
-            case SET_PREFIX -> handleSetPrefix(args, sender, groupName);
-            case LIST_PLAYER -> handleListPlayer(sender, groupName);
+            case SET_PREFIX -> runAsync(() -> handleSetPrefix(args, sender, groupName));
+            case LIST_PLAYER -> runAsync(() -> handleListPlayer(sender, groupName));
             default -> handleDefault(sender);
         }).orElse(false);
     }
 
+    private boolean runAsync(Runnable task) {
+        CompletableFuture.runAsync(task, databaseExecutor).exceptionally(e -> {
+            logger.severe("Group command failed: " + e.getMessage());
+            return null;
+        });
+        return true;
+    }
+
+    private void reply(CommandSender sender, String message) {
+        mainThreadExecutor.execute(() -> sender.sendMessage(message));
+    }
+
     private boolean handleDefault(CommandSender sender) {
         sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(UNKNOWN_COMMAND));
         return false;
     }
 
     private void sendPlayerInfo(CommandSender sender, PlayerDAO playerDAO) {
-        sender.sendMessage(ChatColor.AQUA + localization.getFormattedMessage(PLAYER_INFO_RSP_PLAYER) + ": " + ChatColor.WHITE + playerDAO.getName());
-        sender.sendMessage(ChatColor.AQUA + localization.getFormattedMessage(PLAYER_INFO_RSP_CURRENT_GROUP_SINCE) + ": " + ChatColor.WHITE + playerDAO.getCreateDate());
+        reply(sender, ChatColor.AQUA + localization.getFormattedMessage(PLAYER_INFO_RSP_PLAYER) + ": " + ChatColor.WHITE + playerDAO.getName());
+        reply(sender, ChatColor.AQUA + localization.getFormattedMessage(PLAYER_INFO_RSP_CURRENT_GROUP_SINCE) + ": " + ChatColor.WHITE + playerDAO.getCreateDate());
         if (playerDAO.getCurrentGroupExpire() != null) {
-            sender.sendMessage(ChatColor.AQUA + localization.getFormattedMessage(PLAYER_INFO_RSP_CURRENT_GROUP_EXPIRE) + ": " + ChatColor.WHITE + playerDAO.getCurrentGroupExpire());
+            reply(sender, ChatColor.AQUA + localization.getFormattedMessage(PLAYER_INFO_RSP_CURRENT_GROUP_EXPIRE) + ": " + ChatColor.WHITE + playerDAO.getCurrentGroupExpire());
         }
 
-        sender.sendMessage(ChatColor.GRAY + "--------------------------------");
+        reply(sender, ChatColor.GRAY + "--------------------------------");
     }
 
-    private boolean handleListPlayer(CommandSender sender, String groupName) {
+    private void handleListPlayer(CommandSender sender, String groupName) {
         try {
-            final var players = userGroupService.getPlayerByGroupName(groupName);
-            sender.sendMessage(ChatColor.GREEN + "===== " + ChatColor.YELLOW + groupName + ChatColor.GREEN + " =====");
-            for (Player player : players) {
-                final var playerDAO = playerService.getPlayersActiveGroup(player);
+            final Page<Player> page = userGroupService.getPlayerPageByGroupName(groupName, null, LIST_PLAYER_PAGE_SIZE);
+            reply(sender, ChatColor.GREEN + "===== " + ChatColor.YELLOW + groupName + ChatColor.GREEN + " =====");
+            listPlayerPage(sender, groupName, page).exceptionally(e -> {
+                replyListPlayerError(sender, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                return null;
+            });
+        } catch (Exception e) {
+            replyListPlayerError(sender, e);
+        }
+    }
+
+    /**
+     * Lists the members of one page and continues with the next page once their active groups were loaded,
+     * so no database executor thread waits for another database task.
+     */
+    private CompletableFuture<Void> listPlayerPage(CommandSender sender, String groupName, Page<Player> page) {
+        return playerService.getActiveGroupsAsync(page.getItems()).thenCompose(activeGroups -> {
+            for (PlayerDAO playerDAO : activeGroups.values()) {
                 if (playerDAO.getCurrentGroupName().equals(groupName)) {
                     sendPlayerInfo(sender, playerDAO);
                 }
             }
-            return true;
-        } catch (Exception e) {
-            sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(PLAYER_INFO_ERROR));
-            logger.warning("Could not get Group Information Error: " + e.getMessage());
-            return false;
-        }
+            if (!page.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return userGroupService.getPlayerPageByGroupName(groupName, page.getNextCursor(), LIST_PLAYER_PAGE_SIZE);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, databaseExecutor).thenCompose(nextPage -> listPlayerPage(sender, groupName, nextPage));
+        });
+    }
+
+    private void replyListPlayerError(CommandSender sender, Throwable e) {
+        reply(sender, ChatColor.RED + localization.getFormattedMessage(PLAYER_INFO_ERROR));
+        logger.warning("Could not get Group Information Error: " + e.getMessage());
     }
 
-    private boolean handleSetPrefix(String[] args, CommandSender sender, final String groupName) {
+    private void handleSetPrefix(String[] args, CommandSender sender, final String groupName) {
         String prefix = args[3];
         try {
             userGroupService.updatePrefix(groupName, prefix);
-            sender.sendMessage(ChatColor.GREEN + localization.getFormattedMessage(GROUP_UPDATE_PREFIX, groupName, prefix));
-            return true;
+            reply(sender, ChatColor.GREEN + localization.getFormattedMessage(GROUP_UPDATE_PREFIX, groupName, prefix));
         } catch (Exception e) {
-            sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(GROUP_UPDATE_PREFIX_ERROR));
-            return false;
+            reply(sender, ChatColor.RED + localization.getFormattedMessage(GROUP_UPDATE_PREFIX_ERROR));
         }
     }
 
-    private boolean handleCreateGroup(String[] args, CommandSender sender) {
+    private void handleCreateGroup(String[] args, CommandSender sender) {
         String groupName = args[1];
         String prefix = "";
         if (args.length > 2) {
@@ -127,11 +173,9 @@ public class GroupCommandExecutor implements CommandExecutor {
         }
         try {
             userGroupService.create(new UserGroup(groupName, prefix));
-            sender.sendMessage(ChatColor.GREEN + localization.getFormattedMessage(GROUP_CREATED, groupName));
-            return true;
+            reply(sender, ChatColor.GREEN + localization.getFormattedMessage(GROUP_CREATED, groupName));
         } catch (Exception e) {
-            sender.sendMessage(ChatColor.RED + e.getMessage());
-            return false;
+            reply(sender, ChatColor.RED + e.getMessage());
         }
     }
 
@@ -10,24 +10,30 @@ import org.pano.playlegendpermissions.config.localization.LocalizationManager;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 import org.pano.playlegendpermissions.service.PlayerService;
 
+import java.util.concurrent.Executor;
+
 import static org.pano.playlegendpermissions.config.localization.MessageKey.*;
 
 /**
  * Command executor for handling user-info-related commands in the PlaylegendPermissions plugin.
+ * The group of the player is loaded on the database executor, the response is sent from the main thread.
  */
 public class InfoCommandExecutor implements CommandExecutor {
     final PlayerService playerService;
     final LocalizationManager localization;
+    private final Executor mainThreadExecutor;
 
     /**
      * Constructs a InfoCommandExecutor with the necessary services and localization manager.
      *
-     * @param playerService The service for player operations.
-     * @param localization  The manager for localization and message formatting.
+     * @param playerService      The service for player operations.
+     * @param localization       The manager for localization and message formatting.
+     * @param mainThreadExecutor The executor for Bukkit API calls.
      */
-    public InfoCommandExecutor(PlayerService playerService, LocalizationManager localization) {
+    public InfoCommandExecutor(PlayerService playerService, LocalizationManager localization, Executor mainThreadExecutor) {
         this.playerService = playerService;
         this.localization = localization;
+        this.mainThreadExecutor = mainThreadExecutor;
     }
 
     /**
@@ -41,13 +47,15 @@ public class InfoCommandExecutor implements CommandExecutor {
      */
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, String[] args) {
-        if (args.length == 1 && args[0].equalsIgnoreCase("info") && sender instanceof Player) {
-            try {
-
-                sendPlayerInfo((Player) sender, playerService.getPlayersActiveGroup(playerService.toPlayer((Player) sender)));
-            } catch (Exception e) {
-                sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(PLAYER_INFO_ERROR));
-            }
+        if (args.length == 1 && args[0].equalsIgnoreCase("info") && sender instanceof Player player) {
+            playerService.getPlayersActiveGroupAsync(playerService.toPlayer(player)).handleAsync((playerDAO, e) -> {
+                if (e != null || playerDAO == null) {
+                    sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(PLAYER_INFO_ERROR));
+                } else {
+                    sendPlayerInfo(player, playerDAO);
+                }
+                return null;
+            }, mainThreadExecutor);
         }
         return true;
     }
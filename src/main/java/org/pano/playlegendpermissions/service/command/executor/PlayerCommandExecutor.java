@@ -15,12 +15,15 @@ import org.pano.playlegendpermissions.service.command.CommandOption;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 import static org.pano.playlegendpermissions.config.localization.MessageKey.*;
 
 /**
  * Command executor for handling user (player)-related commands in the PlaylegendPermissions plugin.
+ * The database work of a command runs on the database executor, responses are sent from the main thread.
  */
 public class PlayerCommandExecutor implements CommandExecutor {
 
@@ -31,22 +34,29 @@ public class PlayerCommandExecutor implements CommandExecutor {
     private final Logger logger;
     private final UserGroupService userGroupService;
     private final PlayerService playerService;
+    private final Executor databaseExecutor;
+    private final Executor mainThreadExecutor;
     final LocalizationManager localization;
 
     /**
      * Constructs a PlayerCommandExecutor with the necessary services and localization manager.
      *
-     * @param userGroupService The service for user group operations.
-     * @param playerService    The service for player operations.
-     * @param localization     The manager for localization and message formatting.
-     * @param javaPlugin       The JavaPlugin instance.
+     * @param userGroupService   The service for user group operations.
+     * @param playerService      The service for player operations.
+     * @param localization       The manager for localization and message formatting.
+     * @param javaPlugin         The JavaPlugin instance.
+     * @param databaseExecutor   The executor for blocking database work.
+     * @param mainThreadExecutor The executor for Bukkit API calls.
      */
-    public PlayerCommandExecutor(JavaPlugin javaPlugin, UserGroupService userGroupService, PlayerService playerService, LocalizationManager localization) {
+    public PlayerCommandExecutor(JavaPlugin javaPlugin, UserGroupService userGroupService, PlayerService playerService, LocalizationManager localization,
+                                 Executor databaseExecutor, Executor mainThreadExecutor) {
         this.userGroupService = userGroupService;
         this.logger = javaPlugin.getLogger();
 
         this.playerService = playerService;
         this.localization = localization;
+        this.databaseExecutor = databaseExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
     }
 
     /**
@@ -61,33 +71,46 @@ public class PlayerCommandExecutor implements CommandExecutor {
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, String[] args) {
         if (args.length > 2) {
-            try {
-                Player player = playerService.getPlayer(new Player("", (args[1])));
-                var commandOption = CommandOption.getSubCommandOption(args[2].toLowerCase());
-                if (player != null && commandOption.isPresent()) {
-                    switch (commandOption.get()) {
-                        case SET_GROUP:
-                            return handleSetUserGroup(sender, player, args);
-                        case INFO:
-                            return handleInfoUser();
-                        default:
-                            sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(UNKNOWN_COMMAND));
-                    }
-                } else {
-                    sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(UNKNOWN_PLAYER));
+            CompletableFuture.runAsync(() -> handleUserCommand(sender, args), databaseExecutor).exceptionally(e -> {
+                logger.severe("User command failed: " + e.getMessage());
+                return null;
+            });
+            return true;
+        }
+        return false;
+    }
+
+    private void handleUserCommand(final CommandSender sender, final String[] args) {
+        try {
+            Player player = playerService.getPlayer(new Player("", (args[1])));
+            var commandOption = CommandOption.getSubCommandOption(args[2].toLowerCase());
+            if (player != null && commandOption.isPresent()) {
+                switch (commandOption.get()) {
+                    case SET_GROUP:
+                        handleSetUserGroup(sender, player, args);
+                        break;
+                    case INFO:
+                        handleInfoUser();
+                        break;
+                    default:
+                        reply(sender, ChatColor.RED + localization.getFormattedMessage(UNKNOWN_COMMAND));
                 }
-            } catch (Exception e) {
-                sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(PLAYER_EDIT_ERROR, e.getMessage()));
+            } else {
+                reply(sender, ChatColor.RED + localization.getFormattedMessage(UNKNOWN_PLAYER));
             }
+        } catch (Exception e) {
+            reply(sender, ChatColor.RED + localization.getFormattedMessage(PLAYER_EDIT_ERROR, e.getMessage()));
         }
-        return false;
     }
 
-    private boolean handleInfoUser() {
-        return true;
+    private void reply(final CommandSender sender, final String message) {
+        mainThreadExecutor.execute(() -> sender.sendMessage(message));
+    }
+
+    private void handleInfoUser() {
     }
 
-    private boolean handleSetUserGroup(final CommandSender sender, final Player player, final String[] args) {
+    private void handleSetUserGroup(final CommandSender sender, final Player player, final String[] args) {
         try {
             final UserGroup userGroup = userGroupService.getGroupByName(args[3]);
 
@@ -108,7 +131,7 @@ public class PlayerCommandExecutor implements CommandExecutor {
                         } else if (args[i].toLowerCase().contains(SECOND_IDENTIFIER)) {
                             expireDate = addTimeToTimestamp(expireDate, 0, 0, 0, Integer.parseInt(args[i].replace(SECOND_IDENTIFIER, "")));
                         } else {
-                            sender.sendMessage(ChatColor.RED + localization.getFormattedMessage(UNKNOWN_DATE_FORMAT));
+                            reply(sender, ChatColor.RED + localization.getFormattedMessage(UNKNOWN_DATE_FORMAT));
                         }
                         i++;
                     }
@@ -118,10 +141,9 @@ public class PlayerCommandExecutor implements CommandExecutor {
                 }
             }
         } catch (Exception exception) {
-            sender.sendMessage(ChatColor.RED + exception.getMessage());
+            reply(sender, ChatColor.RED + exception.getMessage());
             logger.warning(exception.getMessage());
         }
-        return true;
     }
 
     private Timestamp addTimeToTimestamp(Timestamp originalTimestamp, int days, int hours, int minutes, int seconds) {
@@ -150,8 +172,8 @@ public class PlayerCommandExecutor implements CommandExecutor {
             }
         }
         if (notifyPlayer) {
-            playerService.sendPlayerMsg(player, ChatColor.GREEN + playerNtfc);
+            mainThreadExecutor.execute(() -> playerService.sendPlayerMsg(player, ChatColor.GREEN + playerNtfc));
         }
-        sender.sendMessage(ChatColor.GREEN + adminMessage);
+        reply(sender, ChatColor.GREEN + adminMessage);
     }
 }
@@ -17,28 +17,33 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.pano.playlegendpermissions.config.localization.MessageKey.PLAYER_ONLY_ERROR;
 import static org.pano.playlegendpermissions.config.localization.MessageKey.SIGN_GENERATE_ERROR;
 
 /**
  * Command executor for handling sign command in the PlaylegendPermissions plugin.
+ * The group of the player is loaded on the database executor, the sign is handed out on the main thread.
  */
 public class SignCommandExecutor implements CommandExecutor {
 
 
     final PlayerService playerService;
     final LocalizationManager localization;
+    private final Executor mainThreadExecutor;
 
     /**
      * Constructs a SignCommandExecutor with the necessary services and localization manager.
      *
-     * @param playerService The service for player operations.
-     * @param localization  The manager for localization and message formatting.
+     * @param playerService      The service for player operations.
+     * @param localization       The manager for localization and message formatting.
+     * @param mainThreadExecutor The executor for Bukkit API calls.
      */
-    public SignCommandExecutor(PlayerService playerService, LocalizationManager localization) {
+    public SignCommandExecutor(PlayerService playerService, LocalizationManager localization, Executor mainThreadExecutor) {
         this.playerService = playerService;
         this.localization = localization;
+        this.mainThreadExecutor = mainThreadExecutor;
     }
 
     /**
@@ -58,15 +63,16 @@ public class SignCommandExecutor implements CommandExecutor {
                 return true;
             }
 
-            try {
-                final var groupName = playerService.getPlayersActiveGroup(playerService.toPlayer(player)).getCurrentGroupName();
-                ItemStack sign = createUserGroupSign(player.getName(), groupName);
-                player.getInventory().addItem(sign);
-                return true;
-            } catch (Exception e) {
-                sender.sendMessage(localization.getFormattedMessage(SIGN_GENERATE_ERROR));
-                return false;
-            }
+            playerService.getPlayersActiveGroupAsync(playerService.toPlayer(player)).handleAsync((playerDAO, e) -> {
+                if (e != null || playerDAO == null) {
+                    sender.sendMessage(localization.getFormattedMessage(SIGN_GENERATE_ERROR));
+                } else {
+                    ItemStack sign = createUserGroupSign(player.getName(), playerDAO.getCurrentGroupName());
+                    player.getInventory().addItem(sign);
+                }
+                return null;
+            }, mainThreadExecutor);
+            return true;
 
         }
         return true;
@@ -4,12 +4,18 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.service.PlayerService;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 public class ChatListener implements Listener {
+    private static final long GROUP_LOAD_TIMEOUT_MILLIS = 500;
     private final PlayerService playerService;
     private final Logger logger;
 
@@ -18,12 +24,22 @@ public class ChatListener implements Listener {
         this.logger = javaPlugin.getLogger();
     }
 
+    /**
+     * Prefixes the chat message with the group prefix of the player. The format has to be set before the handler
+     * returns. Chat is normally handled off the main thread, so a group that is not cached yet is waited for up to
+     * {@value #GROUP_LOAD_TIMEOUT_MILLIS} ms. A chat event fired on the main thread never waits for the database:
+     * if the group is not loaded yet, the message is sent without prefix and the load started here serves the
+     * following messages.
+     *
+     * @param event The chat event.
+     */
     @EventHandler
     public void onPlayerChat(AsyncPlayerChatEvent event) {
         try {
             Player player = playerService.toPlayer(event.getPlayer());
-            final var playerDao = playerService.getPlayersActiveGroup(player);
-            if (!playerDao.getCurrentGroupPrefix().isEmpty()) {
+            final CompletableFuture<PlayerDAO> activeGroup = playerService.getPlayersActiveGroupAsync(player);
+            final PlayerDAO playerDao = event.isAsynchronous() ? awaitActiveGroup(activeGroup) : activeGroup.getNow(null);
+            if (playerDao != null && !playerDao.getCurrentGroupPrefix().isEmpty()) {
                 String format = event.getFormat();
                 event.setFormat("[" + playerDao.getCurrentGroupPrefix() + "] " + format);
             }
@@ -32,4 +48,14 @@ public class ChatListener implements Listener {
         }
     }
 
+    private PlayerDAO awaitActiveGroup(CompletableFuture<PlayerDAO> activeGroup) throws ExecutionException {
+        try {
+            return activeGroup.get(GROUP_LOAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
 }
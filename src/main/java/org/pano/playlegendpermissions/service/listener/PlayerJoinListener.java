@@ -2,12 +2,14 @@ package org.pano.playlegendpermissions.service.listener;
 
 
 import org.bukkit.ChatColor;
+import org.bukkit.Server;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.pano.playlegendpermissions.config.localization.LocalizationManager;
 import org.pano.playlegendpermissions.config.localization.MessageKey;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
 import org.pano.playlegendpermissions.exceptions.GroupNotFoundException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 import org.pano.playlegendpermissions.model.Player;
@@ -15,6 +17,10 @@ import org.pano.playlegendpermissions.service.PlayerService;
 import org.pano.playlegendpermissions.service.UserGroupService;
 import org.pano.playlegendpermissions.store.DatabaseConfig;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 public class PlayerJoinListener implements Listener {
@@ -22,28 +28,77 @@ public class PlayerJoinListener implements Listener {
     private final UserGroupService userGroupService;
     final LocalizationManager localization;
     private final Logger logger;
+    private final Server server;
+    private final Executor databaseExecutor;
+    private final Executor mainThreadExecutor;
 
-    public PlayerJoinListener(PlayerService playerService, UserGroupService userGroupService, LocalizationManager localization, JavaPlugin javaPlugin) {
+    /**
+     * Constructs a PlayerJoinListener.
+     *
+     * @param playerService      The service for player operations.
+     * @param userGroupService   The service for user group operations.
+     * @param localization       The manager for localization and message formatting.
+     * @param javaPlugin         The JavaPlugin instance.
+     * @param databaseExecutor   The executor for blocking database work.
+     * @param mainThreadExecutor The executor for Bukkit API calls.
+     */
+    public PlayerJoinListener(PlayerService playerService, UserGroupService userGroupService, LocalizationManager localization, JavaPlugin javaPlugin,
+                              Executor databaseExecutor, Executor mainThreadExecutor) {
         this.playerService = playerService;
         this.userGroupService = userGroupService;
         this.localization = localization;
         this.logger = javaPlugin.getLogger();
+        this.server = javaPlugin.getServer();
+        this.databaseExecutor = databaseExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
     }
 
+    /**
+     * Stores the joining player and resolves its group on the database executor. The default join message is
+     * replaced by the group join message, which is broadcast from the main thread once the group is known.
+     *
+     * @param event The join event.
+     */
     @EventHandler
-    public void onPlayerJoin(PlayerJoinEvent event) throws Exception {
+    public void onPlayerJoin(PlayerJoinEvent event) {
         final var player = playerService.toPlayer(event.getPlayer());
-        if (playerService.getPlayer(player) == null) {
-            playerService.savePlayer(player);
-            onPlayerJoin(event);
-        } else {
-            final var playerDao = playerService.getPlayersActiveGroup(player);
-            if (playerDao == null) {
-                addPlayerToDefaultGroup(player);
-                onPlayerJoin(event);
-            } else {
-                event.setJoinMessage(ChatColor.GOLD + generateJoinMessage(playerDao));
+        event.setJoinMessage(null);
+        CompletableFuture.runAsync(() -> storePlayer(player), databaseExecutor)
+                .thenCompose(ignored -> playerService.getPlayersActiveGroupAsync(player))
+                .thenCompose(playerDao -> playerDao != null
+                        ? CompletableFuture.completedFuture(playerDao)
+                        : CompletableFuture.runAsync(() -> addPlayerToDefaultGroup(player), databaseExecutor)
+                        .thenCompose(ignored -> playerService.getPlayersActiveGroupAsync(player)))
+                .thenAcceptAsync(playerDao -> {
+                    if (playerDao != null) {
+                        server.broadcastMessage(ChatColor.GOLD + generateJoinMessage(playerDao));
+                    }
+                }, mainThreadExecutor)
+                .exceptionally(e -> {
+                    final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof DatabaseUnavailableException) {
+                        logger.warning("Database unavailable, " + player.getDisplayName() + " joined without group information");
+                    } else {
+                        logger.warning("Could not load group information of " + player.getDisplayName() + ": " + cause.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Saves a new player, or a known player whose display name changed.
+     * If the write-behind queue is full, the player joins without being saved and is saved on a later join.
+     */
+    private void storePlayer(Player player) {
+        try {
+            final var storedPlayer = playerService.getPlayer(player);
+            if (storedPlayer == null || !player.getDisplayName().equals(storedPlayer.getDisplayName())) {
+                playerService.savePlayer(player);
             }
+        } catch (RejectedExecutionException e) {
+            logger.warning("Could not queue " + player.getDisplayName() + " for saving: " + e.getMessage());
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
     }
 
@@ -58,13 +113,13 @@ public class PlayerJoinListener implements Listener {
                 playerDao.getCurrentGroupName());
     }
 
-    private void addPlayerToDefaultGroup(Player player) throws RuntimeException {
+    private void addPlayerToDefaultGroup(Player player) {
         try {
             playerService.addPlayerToGroup(player, userGroupService.getGroupByName(DatabaseConfig.DEFAULT_GROUP));
         } catch (GroupNotFoundException e) {
             logger.warning("Could not add User to Default group Reason: Default Group not found please check config");
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            throw new CompletionException(e);
         }
 
     }
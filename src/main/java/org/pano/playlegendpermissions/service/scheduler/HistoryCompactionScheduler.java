@@ -0,0 +1,85 @@
+package org.pano.playlegendpermissions.service.scheduler;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.pano.playlegendpermissions.repository.Player2GroupRepository;
+import org.pano.playlegendpermissions.store.TransactionManager;
+
+import java.sql.Timestamp;
+import java.util.logging.Logger;
+
+/**
+ * A scheduler class that keeps the player2group table small.
+ * Assignments that expired or were superseded longer than the configured age ago are moved into the archive
+ * table in batches. Every batch runs in its own transaction and the job pauses between batches and stops
+ * after a maximum number of batches per run, so it never saturates the database.
+ */
+public class HistoryCompactionScheduler extends BukkitRunnable {
+    private final JavaPlugin plugin;
+    private final Logger logger;
+    private final Player2GroupRepository player2GroupRepository;
+    private final TransactionManager transactionManager;
+    private final long minAgeMillis;
+    private final int batchSize;
+    private final long batchDelayMillis;
+    private final int maxBatchesPerRun;
+
+    /**
+     * Constructs a HistoryCompactionScheduler with necessary dependencies.
+     *
+     * @param plugin                 The main JavaPlugin instance.
+     * @param player2GroupRepository Repository of the group assignments.
+     * @param transactionManager     Transaction manager every batch runs in.
+     * @param minAgeMillis           How long an assignment must be outdated before it is archived.
+     * @param batchSize              The maximum number of assignments archived per batch.
+     * @param batchDelayMillis       The pause between two batches.
+     * @param maxBatchesPerRun       The maximum number of batches per run.
+     */
+    public HistoryCompactionScheduler(JavaPlugin plugin, Player2GroupRepository player2GroupRepository, TransactionManager transactionManager,
+                                      long minAgeMillis, int batchSize, long batchDelayMillis, int maxBatchesPerRun) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.player2GroupRepository = player2GroupRepository;
+        this.transactionManager = transactionManager;
+        this.minAgeMillis = minAgeMillis;
+        this.batchSize = batchSize;
+        this.batchDelayMillis = batchDelayMillis;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Runs one compaction pass. Batches are archived until fewer than {@code batchSize} assignments
+     * were moved or the maximum number of batches is reached.
+     */
+    @Override
+    public void run() {
+        final Timestamp cutoff = new Timestamp(System.currentTimeMillis() - minAgeMillis);
+        int archived = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                final int moved = transactionManager.inTransaction(() -> player2GroupRepository.archiveOutdated(cutoff, batchSize));
+                archived += moved;
+                if (moved < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchDelayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warning("Could not archive group history: " + e.getMessage());
+        }
+        if (archived > 0) {
+            logger.info("Archived " + archived + " outdated group assignments");
+        }
+    }
+
+    /**
+     * Starts the compaction task asynchronously with the given interval.
+     *
+     * @param intervalSeconds The time between two compaction passes.
+     */
+    public void startTask(long intervalSeconds) {
+        this.runTaskTimerAsynchronously(plugin, intervalSeconds * 20L, intervalSeconds * 20L);
+    }
+}
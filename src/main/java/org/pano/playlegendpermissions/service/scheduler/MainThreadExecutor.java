@@ -0,0 +1,34 @@
+package org.pano.playlegendpermissions.service.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs tasks on the Bukkit main thread.
+ * Used to continue with Bukkit API calls after asynchronous database work has completed.
+ * Tasks submitted from the main thread run immediately.
+ */
+public class MainThreadExecutor implements Executor {
+    private final JavaPlugin javaPlugin;
+
+    /**
+     * Constructs a MainThreadExecutor.
+     *
+     * @param javaPlugin The JavaPlugin instance the tasks are scheduled for.
+     */
+    public MainThreadExecutor(JavaPlugin javaPlugin) {
+        this.javaPlugin = javaPlugin;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        if (Bukkit.isPrimaryThread()) {
+            command.run();
+        } else {
+            javaPlugin.getServer().getScheduler().runTask(javaPlugin, command);
+        }
+    }
+}
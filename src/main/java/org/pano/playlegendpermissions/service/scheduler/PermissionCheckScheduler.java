@@ -8,6 +8,7 @@ import org.pano.playlegendpermissions.service.PlayerService;
 import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
 
 import java.sql.Timestamp;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 import static org.pano.playlegendpermissions.config.localization.MessageKey.PLAYER_NTFC_GROUP_EXPIRED;
@@ -22,6 +23,7 @@ public class PermissionCheckScheduler extends BukkitRunnable {
     private final PlayerCacheManager playerCacheManager;
     private final PlayerService playerService;
     private final LocalizationManager localization;
+    private final Executor mainThreadExecutor;
 
     /**
      * Constructs a PermissionCheckScheduler with necessary dependencies.
@@ -30,18 +32,22 @@ public class PermissionCheckScheduler extends BukkitRunnable {
      * @param playerCacheManager Manager for the player cache.
      * @param playerService      Service for player-related operations.
      * @param localization       localization object to get correct language
+     * @param mainThreadExecutor The executor for Bukkit API calls.
      */
-    public PermissionCheckScheduler(JavaPlugin plugin, PlayerCacheManager playerCacheManager, PlayerService playerService, LocalizationManager localization) {
+    public PermissionCheckScheduler(JavaPlugin plugin, PlayerCacheManager playerCacheManager, PlayerService playerService, LocalizationManager localization,
+                                    Executor mainThreadExecutor) {
         this.plugin = plugin;
         this.playerCacheManager = playerCacheManager;
         this.playerService = playerService;
         this.logger = plugin.getLogger();
         this.localization = localization;
+        this.mainThreadExecutor = mainThreadExecutor;
     }
 
     /**
      * Runs the permission check task. This method is invoked repeatedly based on a set interval.
      * It checks for players whose group assignments have expired and updates their group status.
+     * The new group is loaded on the database executor, the player is notified from the main thread.
      */
     @Override
     public void run() {
@@ -49,15 +55,15 @@ public class PermissionCheckScheduler extends BukkitRunnable {
         playerCacheManager.getAll().stream()
                 .filter(playerDAO -> playerDAO.getCurrentGroupExpire() != null && playerDAO.getCurrentGroupExpire().before(currentTime))
                 .forEach(playerDAO -> {
-                    try {
-                        Player player = new Player(playerDAO.getUuid(), playerDAO.getName());
-                        playerService.deleteFromCache(playerDAO.getUuid());
-                        final var activePlayerDao = playerService.getPlayersActiveGroup(player);
-                        Thread.sleep(100);
-                        playerService.sendPlayerMsg(player, localization.getFormattedMessage(PLAYER_NTFC_GROUP_EXPIRED, playerDAO.getCurrentGroupName(), activePlayerDao.getCurrentGroupName()));
-                    } catch (Exception e) {
-                        logger.warning("Could not invalidate players current group please check for: " + playerDAO.getName());
-                    }
+                    Player player = new Player(playerDAO.getUuid(), playerDAO.getName());
+                    playerService.deleteFromCache(playerDAO.getUuid());
+                    playerService.getPlayersActiveGroupAsync(player)
+                            .thenAcceptAsync(activePlayerDao -> playerService.sendPlayerMsg(player, localization.getFormattedMessage(PLAYER_NTFC_GROUP_EXPIRED,
+                                    playerDAO.getCurrentGroupName(), activePlayerDao.getCurrentGroupName())), mainThreadExecutor)
+                            .exceptionally(e -> {
+                                logger.warning("Could not invalidate players current group please check for: " + playerDAO.getName());
+                                return null;
+                            });
                 });
     }
 
@@ -0,0 +1,127 @@
+package org.pano.playlegendpermissions.store;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker in front of the connection pool.
+ * After {@code failureThreshold} consecutive failures to obtain a connection the breaker opens: callers are
+ * rejected immediately instead of blocking for the pool's connection timeout. A request that waited for the whole
+ * connection timeout because the pool could not connect to the database opens the breaker right away, so an
+ * unreachable database costs one timeout and not one per failure. A timeout without such a cause only means the
+ * pool was exhausted and counts like any other failure. While the breaker is open a background thread probes the
+ * database every {@code probeIntervalMillis} and closes the breaker on the first success.
+ */
+public class CircuitBreaker {
+    private static final String THREAD_NAME = "pper-db-probe";
+    private final String resourceName;
+    private final int failureThreshold;
+    private final long probeIntervalMillis;
+    private final Probe probe;
+    private final Logger logger;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean open;
+    private ScheduledFuture<?> probeTask;
+
+    /**
+     * A check that succeeds only if the database is reachable.
+     */
+    @FunctionalInterface
+    public interface Probe {
+        void check() throws Exception;
+    }
+
+    /**
+     * Creates a new closed CircuitBreaker.
+     *
+     * @param resourceName        The name of the guarded database in log messages.
+     * @param failureThreshold    The number of consecutive failures that opens the breaker.
+     * @param probeIntervalMillis The time between two recovery probes while the breaker is open.
+     * @param probe               The recovery probe.
+     * @param logger              Logger for reporting state changes.
+     */
+    public CircuitBreaker(final String resourceName, final int failureThreshold, final long probeIntervalMillis, final Probe probe, final Logger logger) {
+        this.resourceName = resourceName;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.probeIntervalMillis = Math.max(1, probeIntervalMillis);
+        this.probe = probe;
+        this.logger = logger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true if requests are rejected because the database is considered unavailable.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Records a successfully obtained connection. The common case without preceding failures takes no lock.
+     */
+    public void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            synchronized (this) {
+                consecutiveFailures.set(0);
+            }
+        }
+    }
+
+    /**
+     * Records a failure to obtain a connection and opens the breaker once the threshold is reached,
+     * or right away if the request timed out because the pool could not connect to the database.
+     *
+     * @param cause The failure.
+     */
+    public synchronized void recordFailure(final Exception cause) {
+        final int failures = consecutiveFailures.incrementAndGet();
+        if (open || (failures < failureThreshold && !isConnectTimeout(cause))) {
+            return;
+        }
+        open = true;
+        logger.severe(resourceName + " unreachable (" + cause.getMessage() + "), rejecting requests until it recovers");
+        probeTask = scheduler.scheduleWithFixedDelay(this::probeOnce, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hikari attaches the last failure to create a connection as cause of its timeout. Without a cause the pool
+     * was reachable but every connection was in use.
+     */
+    private static boolean isConnectTimeout(final Exception cause) {
+        return cause instanceof SQLTransientConnectionException && cause.getCause() != null;
+    }
+
+    /**
+     * Stops the recovery probe.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void probeOnce() {
+        try {
+            probe.check();
+        } catch (Exception e) {
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures.set(0);
+            open = false;
+            if (probeTask != null) {
+                probeTask.cancel(false);
+                probeTask = null;
+            }
+        }
+        logger.info(resourceName + " connection restored, accepting requests again");
+    }
+}
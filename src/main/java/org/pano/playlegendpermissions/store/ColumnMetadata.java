@@ -0,0 +1,110 @@
+package org.pano.playlegendpermissions.store;
+
+import org.pano.playlegendpermissions.config.annotations.AnnotationUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Precomputed mapping information for a single persisted field of an entity.
+ * A column is either a plain {@link org.pano.playlegendpermissions.config.annotations.Column} or a foreign key
+ * declared through {@link org.pano.playlegendpermissions.config.annotations.OneToMany}.
+ */
+public final class ColumnMetadata {
+    private final Field field;
+    private final String name;
+    private final String selectLabel;
+    private final boolean primary;
+    private final boolean foreignKey;
+    private final String referencedTable;
+
+    ColumnMetadata(final Class<?> owner, final Field field) {
+        field.setAccessible(true);
+        this.field = field;
+        this.foreignKey = AnnotationUtils.isColumnForeignKey(field);
+        this.name = foreignKey ? AnnotationUtils.getForeignKeyField(field) : AnnotationUtils.getColumnName(field);
+        this.primary = AnnotationUtils.isColumnPrimary(field);
+        this.referencedTable = AnnotationUtils.getForeignKeyTable(field);
+        this.selectLabel = owner.getSimpleName() + "_" + field.getName();
+    }
+
+    /**
+     * @return The reflected field backing this column.
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * @return The name of the column in the database table.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The alias under which this column is selected, e.g. {@code Player_displayName}.
+     */
+    public String getSelectLabel() {
+        return selectLabel;
+    }
+
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    public boolean isForeignKey() {
+        return foreignKey;
+    }
+
+    /**
+     * @return The unprefixed table the foreign key points to, or null for plain columns.
+     */
+    public String getReferencedTable() {
+        return referencedTable;
+    }
+
+    /**
+     * @return The Java type of the field, for foreign keys this is the referenced entity class.
+     */
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * Reads the raw field value from an entity.
+     *
+     * @param entity The entity to read from.
+     * @return The field value.
+     * @throws IllegalAccessException If the field is not accessible.
+     */
+    public Object get(final Object entity) throws IllegalAccessException {
+        return field.get(entity);
+    }
+
+    /**
+     * Reads the value that has to be bound to a statement for this column.
+     * For foreign keys this is the primary key of the referenced entity.
+     *
+     * @param entity The entity to read from.
+     * @return The value to bind, or null.
+     * @throws IllegalAccessException If the field is not accessible.
+     */
+    public Object getColumnValue(final Object entity) throws IllegalAccessException {
+        final Object value = field.get(entity);
+        if (foreignKey && value != null) {
+            return EntityMetadata.of(value.getClass()).getPrimaryKey().get(value);
+        }
+        return value;
+    }
+
+    /**
+     * Writes a value into the field of an entity.
+     *
+     * @param entity The entity to write into.
+     * @param value  The value to set.
+     * @throws IllegalAccessException If the field is not accessible.
+     */
+    public void set(final Object entity, final Object value) throws IllegalAccessException {
+        field.set(entity, value);
+    }
+}
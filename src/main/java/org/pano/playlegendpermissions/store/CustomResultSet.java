@@ -1,23 +1,34 @@
 package org.pano.playlegendpermissions.store;
 
-import org.pano.playlegendpermissions.config.annotations.Column;
-import org.pano.playlegendpermissions.config.annotations.OneToMany;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A custom wrapper for {@link ResultSet} that maps database rows to Java objects of a specified type.
+ * <p>
+ * By default all rows are mapped eagerly when the instance is created. A streaming instance created through
+ * {@link #streaming(Connection, Statement, ResultSet, RowMapper)} instead keeps the cursor open and maps rows
+ * lazily while they are iterated; it owns the statement and connection and releases them on {@link #close()}.
  *
  * @param <T> The type of objects to be created from the ResultSet data.
  */
-public class CustomResultSet<T> implements AutoCloseable {
+public class CustomResultSet<T> implements AutoCloseable, Iterable<T> {
     private final List<T> results;
     private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final Statement statement;
+    private final Connection connection;
+    private boolean closed;
 
     /**
      * Constructs a new CustomResultSet instance and maps the rows of the given ResultSet to the specified entity type.
@@ -27,90 +38,149 @@ public class CustomResultSet<T> implements AutoCloseable {
      * @throws SQLException If a database access error occurs or mapping fails.
      */
     public CustomResultSet(ResultSet resultSet, Class<T> entityType) throws SQLException {
+        this(resultSet, EntityRowMapper.of(entityType));
+    }
+
+    /**
+     * Constructs a new CustomResultSet instance and maps the rows of the given ResultSet with the given mapper.
+     *
+     * @param resultSet The ResultSet to wrap and process.
+     * @param rowMapper The mapper that converts a single row.
+     * @throws SQLException If a database access error occurs or mapping fails.
+     */
+    public CustomResultSet(ResultSet resultSet, RowMapper<T> rowMapper) throws SQLException {
         this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.statement = null;
+        this.connection = null;
         this.results = new ArrayList<>();
         while (this.resultSet.next()) {
-            T entity = mapRowToEntity(this.resultSet, entityType);
-            results.add(entity);
+            results.add(rowMapper.mapRow(this.resultSet));
         }
     }
 
+    private CustomResultSet(Connection connection, Statement statement, ResultSet resultSet, RowMapper<T> rowMapper) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.results = null;
+    }
+
     /**
-     * Maps a single row of a ResultSet to an object of the specified entity type.
+     * Creates a streaming CustomResultSet that maps rows lazily from an open cursor.
+     * The returned instance takes ownership of the connection, statement and ResultSet.
      *
-     * @param resultSet  The ResultSet from which to map the row.
-     * @param entityType The class of the entity type to map to.
-     * @return An instance of T that represents the mapped row.
-     * @throws SQLException If a database access error occurs or mapping fails.
+     * @param connection The connection the statement was created on.
+     * @param statement  The executed statement.
+     * @param resultSet  The open ResultSet.
+     * @param rowMapper  The mapper that converts a single row.
+     * @param <T>        The type of the mapped objects.
+     * @return A streaming CustomResultSet.
      */
-    private T mapRowToEntity(ResultSet resultSet, Class<T> entityType) throws SQLException {
-        try {
-            T entity = entityType.getDeclaredConstructor().newInstance();
-            for (Field field : entityType.getDeclaredFields()) {
-                field.setAccessible(true);
+    public static <T> CustomResultSet<T> streaming(Connection connection, Statement statement, ResultSet resultSet, RowMapper<T> rowMapper) {
+        return new CustomResultSet<>(connection, statement, resultSet, rowMapper);
+    }
 
-                if (field.isAnnotationPresent(Column.class)) {
-                    String columnName = entityType.getSimpleName() + "_" + field.getName();
-                    Object value = resultSet.getObject(columnName);
-                    field.set(entity, value);
-                } else if (field.isAnnotationPresent(OneToMany.class)) {
-                    Class<?> foreignClass = field.getType();
-                    Object referencedEntity = loadReferencedEntity(resultSet, foreignClass);
-                    field.set(entity, referencedEntity);
-                }
-            }
-            return entity;
-        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException |
-                 InvocationTargetException e) {
-            throw new SQLException("Mapping error", e);
+    /**
+     * Gets the list of results mapped from the ResultSet.
+     *
+     * @return A list of mapped results.
+     * @throws IllegalStateException If this is a streaming instance.
+     */
+    public List<T> getResults() {
+        if (results == null) {
+            throw new IllegalStateException("Streaming results can only be consumed through iterator() or stream()");
         }
+        return results;
     }
 
     /**
-     * Loads a referenced entity from a ResultSet.
+     * Returns an iterator over the results. For streaming instances the rows are mapped while iterating
+     * and the underlying resources are released once the last row was read.
      *
-     * @param resultSet    The ResultSet from which to load the referenced entity.
-     * @param foreignClass The class of the foreign entity to be loaded.
-     * @return An instance of the foreign entity class.
-     * @throws SQLException If a database access error occurs or loading fails.
+     * @return An iterator over the mapped results.
      */
-    private Object loadReferencedEntity(ResultSet resultSet, Class<?> foreignClass) throws SQLException {
-        try {
-            Object foreignEntity = foreignClass.getDeclaredConstructor().newInstance();
-            for (Field foreignField : foreignClass.getDeclaredFields()) {
-                foreignField.setAccessible(true);
+    @Override
+    public Iterator<T> iterator() {
+        if (results != null) {
+            return results.iterator();
+        }
+        return new Iterator<>() {
+            private boolean hasPeeked;
+            private boolean hasNext;
 
-                if (foreignField.isAnnotationPresent(Column.class)) {
-                    String foreignColumnName = foreignClass.getSimpleName() + "_" + foreignField.getName();
-                    Object foreignValue = resultSet.getObject(foreignColumnName);
-                    foreignField.set(foreignEntity, foreignValue);
+            @Override
+            public boolean hasNext() {
+                if (!hasPeeked) {
+                    try {
+                        hasNext = !closed && resultSet.next();
+                        hasPeeked = true;
+                        if (!hasNext) {
+                            close();
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
                 }
+                return hasNext;
             }
-            return foreignEntity;
-        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException |
-                 InvocationTargetException e) {
-            throw new SQLException("Error loading referenced entity", e);
-        }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasPeeked = false;
+                try {
+                    return rowMapper.mapRow(resultSet);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
     }
 
     /**
-     * Gets the list of results mapped from the ResultSet.
+     * Returns the results as a sequential stream. Closing the stream closes this CustomResultSet.
      *
-     * @return A list of mapped results.
+     * @return A stream over the mapped results.
      */
-    public List<T> getResults() {
-        return results;
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    /**
+     * Returns whether this CustomResultSet was closed, either explicitly or because a streaming iteration was exhausted.
+     *
+     * @return true if the underlying resources were released.
+     */
+    public boolean isClosed() {
+        return closed;
     }
 
     /**
-     * Closes the underlying ResultSet.
+     * Closes the underlying ResultSet and, for streaming instances, the statement and connection.
      *
      * @throws Exception If an error occurs while closing the ResultSet.
      */
     @Override
     public void close() throws Exception {
-        if (resultSet != null) {
-            resultSet.close();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (Connection ignoredConnection = connection; Statement ignoredStatement = statement) {
+            if (resultSet != null) {
+                resultSet.close();
+            }
         }
     }
 }
@@ -2,17 +2,16 @@ package org.pano.playlegendpermissions.store;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,79 +21,271 @@ import java.util.logging.Logger;
  */
 public class DatabaseConfig {
     private static final String DEFAULT_TABLE_PREFIX = "pper_";
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final String POOL_NAME = "PlaylegendPermissions";
+    private static final long DEFAULT_SLOW_QUERY_THRESHOLD = 50;
+    private static final long DEFAULT_READ_YOUR_WRITES_WINDOW = 5;
+    private static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    private static final long DEFAULT_PROBE_INTERVAL = 5;
+    private static final int PROBE_VALIDATION_TIMEOUT_SECONDS = 2;
     public static String tablePrefix;
+    public static int fetchSize = DEFAULT_FETCH_SIZE;
+    public static int asyncMaxConcurrency;
+    public static int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
     public static String DEFAULT_GROUP = "Player";
     public static String DEFAULT_GROUP_PREFIX = "";
     private static Logger LOGGER;
     private static HikariDataSource dataSource;
+    private static HikariDataSource replicaDataSource;
+    private static ReadYourWritesTracker readYourWritesTracker;
+    private static CircuitBreaker circuitBreaker;
+    private static CircuitBreaker replicaCircuitBreaker;
+    private static SqlDialect dialect = new MySqlDialect();
 
     /**
      * Sets up the data source for database connection using HikariCP.
-     * Configures the data source based on the plugin configuration.
+     * Configures the data source based on the plugin configuration and the selected {@link SqlDialect}.
      *
      * @param plugin The JavaPlugin instance for accessing configuration.
      */
     public static void setupDataSource(JavaPlugin plugin) {
         LOGGER = plugin.getLogger();
         tablePrefix = getTablePrefixFromConfig(plugin);
+        SqlTemplateCache.clear();
 
         if (plugin.getConfig().isString("defaultGroup.name")) {
             DEFAULT_GROUP = plugin.getConfig().getString("defaultGroup.name");
         }
         DEFAULT_GROUP_PREFIX = plugin.getConfig().getString("defaultGroup.prefix");
-        String host = plugin.getConfig().getString("database.host");
-        String port = plugin.getConfig().getString("database.port");
-        String dbname = plugin.getConfig().getString("database.dbname");
-        String user = plugin.getConfig().getString("database.user");
-        String password = plugin.getConfig().getString("database.password");
+        dialect = SqlDialect.fromName(plugin.getConfig().getString("database.type"));
+        fetchSize = plugin.getConfig().getInt("database.fetchSize", DEFAULT_FETCH_SIZE);
+        transactionIsolation = TransactionManager.parseIsolationLevel(plugin.getConfig().getString("database.transactionIsolation"));
+        QueryMetrics.configure(LOGGER, plugin.getConfig().getLong("database.metrics.slowQueryThreshold", DEFAULT_SLOW_QUERY_THRESHOLD));
 
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + dbname);
-        config.setUsername(user);
-        config.setPassword(password);
+        config.setPoolName(POOL_NAME);
+        final ConfigurationSection poolSection = plugin.getConfig().getConfigurationSection("database.pool");
+        if (poolSection != null) {
+            configurePool(config, poolSection);
+        }
+        dialect.configure(config, plugin);
+        applyDriverProperties(config, poolSection, dialect);
+        asyncMaxConcurrency = plugin.getConfig().getInt("database.async.maxConcurrency", config.getMaximumPoolSize());
 
         dataSource = new HikariDataSource(config);
+        setupReplicaDataSource(plugin, poolSection);
+        circuitBreaker = createCircuitBreaker(plugin, "Database", dataSource);
+    }
+
+    private static CircuitBreaker createCircuitBreaker(JavaPlugin plugin, String resourceName, HikariDataSource target) {
+        return new CircuitBreaker(resourceName,
+                plugin.getConfig().getInt("database.circuitBreaker.failureThreshold", DEFAULT_FAILURE_THRESHOLD),
+                TimeUnit.SECONDS.toMillis(plugin.getConfig().getLong("database.circuitBreaker.probeInterval", DEFAULT_PROBE_INTERVAL)),
+                () -> probe(target), LOGGER);
+    }
+
+    /**
+     * Sets up the optional read replica pool. Only MySQL replicas are supported.
+     *
+     * @param plugin      The JavaPlugin instance for accessing configuration.
+     * @param poolSection The {@code database.pool} configuration section, applied to the replica pool as well.
+     */
+    private static void setupReplicaDataSource(JavaPlugin plugin, ConfigurationSection poolSection) {
+        replicaDataSource = null;
+        replicaCircuitBreaker = null;
+        readYourWritesTracker = null;
+        if (!plugin.getConfig().getBoolean("database.replica.enabled", false)) {
+            return;
+        }
+        if (!(dialect instanceof MySqlDialect mySqlDialect)) {
+            LOGGER.warning("Read replicas are only supported for MySQL, all queries use the primary database.");
+            return;
+        }
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME + "-replica");
+        if (poolSection != null) {
+            configurePool(config, poolSection);
+        }
+        mySqlDialect.configureReplica(config, plugin);
+        applyDriverProperties(config, poolSection, mySqlDialect);
+        config.setReadOnly(true);
+
+        replicaDataSource = new HikariDataSource(config);
+        replicaCircuitBreaker = createCircuitBreaker(plugin, "Read replica", replicaDataSource);
+        readYourWritesTracker = new ReadYourWritesTracker(TimeUnit.SECONDS.toMillis(
+                plugin.getConfig().getLong("database.replica.readYourWritesWindow", DEFAULT_READ_YOUR_WRITES_WINDOW)));
     }
 
     /**
      * Retrieves a database connection from the data source.
+     * Inside a {@link TransactionManager} transaction the transaction's connection is returned instead.
+     * While the database is unavailable the request is rejected immediately, see {@link CircuitBreaker}.
      *
      * @return A Connection object for database operations.
-     * @throws SQLException If a database access error occurs.
+     * @throws DatabaseUnavailableException If the database is unavailable.
+     * @throws SQLException                 If a database access error occurs.
      */
     public static Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        final Connection transactionConnection = TransactionManager.currentConnection();
+        if (transactionConnection != null) {
+            return transactionConnection;
+        }
+        if (!isAvailable()) {
+            throw new DatabaseUnavailableException();
+        }
+        final long start = System.nanoTime();
+        final Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.recordFailure(e);
+            }
+            throw e;
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.recordSuccess();
+        }
+        QueryMetrics.recordPoolWait(start);
+        return connection;
+    }
+
+    /**
+     * @return false while the circuit breaker rejects database requests.
+     */
+    public static boolean isAvailable() {
+        return circuitBreaker == null || !circuitBreaker.isOpen();
+    }
+
+    /**
+     * Returns the dialect of the configured database backend.
+     *
+     * @return The SqlDialect in use.
+     */
+    public static SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Retrieves a connection for a read-only lookup. Lookups are served by the read replica if one is configured,
+     * unless the routing key was written recently; those are read from the primary so the writer sees its own changes.
+     * While the replica is unreachable its own circuit breaker is open and lookups fall back to the primary.
+     * Lookups inside a transaction always use the transaction's connection.
+     *
+     * @param routingKey The table qualified key the lookup is for, see {@link ReadYourWritesTracker#key(String, Object)},
+     *                   or null if it is not key based.
+     * @return A Connection object for the lookup.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static Connection getReadConnection(Object routingKey) throws SQLException {
+        if (replicaDataSource == null || TransactionManager.currentConnection() != null
+                || readYourWritesTracker.isRecentlyWritten(routingKey) || replicaCircuitBreaker.isOpen()) {
+            return getConnection();
+        }
+        final long start = System.nanoTime();
+        final Connection connection;
+        try {
+            connection = replicaDataSource.getConnection();
+        } catch (SQLException e) {
+            replicaCircuitBreaker.recordFailure(e);
+            return getConnection();
+        }
+        replicaCircuitBreaker.recordSuccess();
+        QueryMetrics.recordPoolWait(start);
+        return connection;
+    }
+
+    /**
+     * Records that the given key was written, so following lookups of it are read from the primary.
+     *
+     * @param routingKey The table qualified written key, see {@link ReadYourWritesTracker#key(String, Object)}.
+     */
+    public static void markWritten(Object routingKey) {
+        if (readYourWritesTracker != null) {
+            readYourWritesTracker.markWritten(routingKey);
+        }
+    }
+
+    /**
+     * Closes the data sources and all pooled connections.
+     */
+    public static void closeDataSource() {
+        if (circuitBreaker != null) {
+            circuitBreaker.shutdown();
+        }
+        if (replicaCircuitBreaker != null) {
+            replicaCircuitBreaker.shutdown();
+        }
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            replicaDataSource.close();
+        }
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Initializes the database by applying all pending schema migrations and inserting the default group.
+     *
+     * @throws SQLException If a migration fails.
+     */
+    public static void initializeDatabase() throws SQLException {
+        new SchemaMigrator(dialect, tablePrefix, LOGGER).migrate();
+        try {
+            executeSQL("INSERT INTO " + tablePrefix + "user_group (id, name, prefix) VALUES (1, '" + DEFAULT_GROUP + "', '" + DEFAULT_GROUP_PREFIX + "');");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.CONFIG, "Default group not inserted, it is already created.");
+        }
+    }
+
+    /**
+     * Applies the pool sizing, timeouts and leak detection from the configuration.
+     * Unset values keep the HikariCP defaults.
+     *
+     * @param config      The pool configuration to fill.
+     * @param poolSection The {@code database.pool} configuration section.
+     */
+    private static void configurePool(HikariConfig config, ConfigurationSection poolSection) {
+        config.setMaximumPoolSize(poolSection.getInt("maximumPoolSize", config.getMaximumPoolSize()));
+        config.setMinimumIdle(poolSection.getInt("minimumIdle", config.getMaximumPoolSize()));
+        config.setConnectionTimeout(poolSection.getLong("connectionTimeout", config.getConnectionTimeout()));
+        config.setIdleTimeout(poolSection.getLong("idleTimeout", config.getIdleTimeout()));
+        config.setMaxLifetime(poolSection.getLong("maxLifetime", config.getMaxLifetime()));
+        config.setKeepaliveTime(poolSection.getLong("keepaliveTime", config.getKeepaliveTime()));
+        config.setLeakDetectionThreshold(poolSection.getLong("leakDetectionThreshold", config.getLeakDetectionThreshold()));
+        config.setRegisterMbeans(poolSection.getBoolean("registerMbeans", false));
     }
 
     /**
-     * Initializes the database with the necessary tables and data.
-     * Loads and executes SQL statements from an SQL file.
+     * Applies the driver properties from {@code database.pool.properties.<type>}, overriding the dialect defaults.
+     * Only the section of the given dialect is applied, so e.g. MySQL driver properties never reach the SQLite driver.
+     *
+     * @param config      The pool configuration to fill.
+     * @param poolSection The {@code database.pool} configuration section, may be null.
+     * @param dialect     The dialect whose driver properties are applied.
      */
-    public static void initializeDatabase() {
-        String sql = loadSQLFromFile("init_db.sql");
-        if (sql != null) {
-            executeSQL(sql);
-            try {
-                executeSQL("INSERT INTO " + tablePrefix + "user_group (id, name, prefix) VALUES (1, '" + DEFAULT_GROUP + "', '" + DEFAULT_GROUP_PREFIX + "');");
-            } catch (RuntimeException e) {
-                LOGGER.log(Level.CONFIG, "Default group not inserted, it is already created.");
+    private static void applyDriverProperties(HikariConfig config, ConfigurationSection poolSection, SqlDialect dialect) {
+        final String path = "properties." + dialect.getName();
+        if (poolSection != null && poolSection.isConfigurationSection(path)) {
+            final ConfigurationSection properties = poolSection.getConfigurationSection(path);
+            for (String key : properties.getKeys(false)) {
+                config.addDataSourceProperty(key, properties.getString(key));
             }
         }
     }
 
     /**
-     * Loads SQL statements from a file.
+     * Checks that a database hands out a valid connection, bypassing the circuit breaker.
      *
-     * @param filename The name of the file containing SQL statements.
-     * @return A String containing the SQL statements.
+     * @param target The pool of the probed database.
+     * @throws SQLException If no valid connection could be obtained.
      */
-    private static String loadSQLFromFile(String filename) {
-        try (InputStream in = DatabaseConfig.class.getClassLoader().getResourceAsStream(filename);
-             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8)) {
-            String sql = scanner.useDelimiter("\\A").next();
-            return sql.replace("{PREFIX}", tablePrefix);
-        } catch (IOException e) {
-            return null;
+    private static void probe(HikariDataSource target) throws SQLException {
+        try (Connection connection = target.getConnection()) {
+            if (!connection.isValid(PROBE_VALIDATION_TIMEOUT_SECONDS)) {
+                throw new SQLException("Connection is not valid");
+            }
         }
     }
 
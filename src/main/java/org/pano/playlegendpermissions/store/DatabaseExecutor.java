@@ -0,0 +1,95 @@
+package org.pano.playlegendpermissions.store;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executor for blocking database work.
+ * Tasks run on virtual threads when the runtime supports them (Java 21+), otherwise on a fixed pool of daemon
+ * platform threads. In both cases at most {@code maxConcurrency} tasks touch the database at the same time,
+ * which should not exceed the size of the connection pool.
+ */
+public class DatabaseExecutor implements Executor {
+    private static final String THREAD_NAME_PREFIX = "pper-db-";
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final Logger logger;
+
+    /**
+     * Creates a new DatabaseExecutor.
+     *
+     * @param maxConcurrency The maximum number of tasks running at the same time.
+     * @param logger         Logger for reporting the chosen thread model and failed tasks.
+     */
+    public DatabaseExecutor(final int maxConcurrency, final Logger logger) {
+        this.logger = logger;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        final ExecutorService virtualExecutor = createVirtualThreadExecutor();
+        if (virtualExecutor != null) {
+            this.delegate = virtualExecutor;
+            logger.info("Running database tasks on virtual threads, at most " + permits.availablePermits() + " at a time");
+        } else {
+            this.delegate = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), new DaemonThreadFactory());
+            logger.info("Running database tasks on a pool of " + permits.availablePermits() + " platform threads");
+        }
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                logger.warning("Database task failed: " + e.getMessage());
+                throw e;
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Stops accepting new tasks and waits for running tasks to complete.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     */
+    public void shutdown(final long timeout, final TimeUnit unit) {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(timeout, unit)) {
+                logger.warning("Database tasks did not finish in time and were cancelled");
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
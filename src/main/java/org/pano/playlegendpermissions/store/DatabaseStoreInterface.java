@@ -1,7 +1,9 @@
 package org.pano.playlegendpermissions.store;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A generic interface for defining basic database operations.
@@ -38,6 +40,25 @@ public interface DatabaseStoreInterface<T, ID> {
      */
     List<T> findAll() throws Exception;
 
+    /**
+     * Streams all entities in the database from an open cursor, mapping them lazily.
+     * The stream holds a database connection and must be closed, e.g. with try-with-resources.
+     *
+     * @return A lazily mapped stream of all entities.
+     * @throws SQLException If the query could not be executed.
+     */
+    Stream<T> streamAll() throws SQLException;
+
+    /**
+     * Reads one page of all entities, ordered by primary key.
+     *
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param pageSize The maximum number of entities on the page.
+     * @return The page of entities.
+     * @throws SQLException If the query could not be executed.
+     */
+    Page<T> findPage(Object cursor, int pageSize) throws SQLException;
+
     /**
      * Saves a given entity to the database.
      *
@@ -56,5 +77,23 @@ public interface DatabaseStoreInterface<T, ID> {
      * @throws IllegalAccessException If there is an illegal access issue during the operation.
      */
     T update(T entity) throws SQLException, IllegalAccessException;
-}
 
+    /**
+     * Saves multiple entities in one batch.
+     *
+     * @param entities The entities to be saved.
+     * @return The saved entities, with generated keys applied in order.
+     * @throws Exception If there is an issue during the database operation.
+     */
+    List<T> saveAll(Collection<T> entities) throws Exception;
+
+    /**
+     * Updates multiple entities in one batch.
+     *
+     * @param entities The entities to be updated.
+     * @return The updated entities.
+     * @throws SQLException If there is a SQL issue during the update operation.
+     * @throws IllegalAccessException If there is an illegal access issue during the operation.
+     */
+    List<T> updateAll(Collection<T> entities) throws SQLException, IllegalAccessException;
+}
@@ -1,16 +1,17 @@
 package org.pano.playlegendpermissions.store;
 
-import org.pano.playlegendpermissions.config.annotations.AnnotationUtils;
-import org.pano.playlegendpermissions.config.annotations.Column;
-import org.pano.playlegendpermissions.config.annotations.OneToMany;
 import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.model.UserGroup;
+import org.pano.playlegendpermissions.store.SqlTemplateCache.Operation;
 
 import java.lang.reflect.Field;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +21,9 @@ import java.util.stream.Collectors;
  * @param <T> The type of the entity.
  */
 public class DatabaseUtils<T> {
+    private static final int BATCH_SIZE = 1000;
+    private static final Map<Class<?>, ProjectionQuery<?>> PAGE_QUERIES = new ConcurrentHashMap<>();
+
     /**
      * Saves an entity to the database and returns the generated key.
      *
@@ -29,16 +33,20 @@ public class DatabaseUtils<T> {
      * @throws IllegalAccessException If the entity fields are not accessible.
      */
     public long saveObjectToDatabase(final T entity) throws SQLException, IllegalAccessException {
-        final var tableName = DatabaseConfig.tablePrefix + AnnotationUtils.getTableName(entity.getClass());
-        final var fields = Arrays.stream(entity.getClass().getDeclaredFields()).toList();
-        final var sql = generateSqlByFields(fields, tableName);
-        System.out.println(sql);
+        final EntityMetadata<?> metadata = EntityMetadata.of(entity.getClass());
+        final var sql = SqlTemplateCache.get(metadata.getEntityClass(), Operation.INSERT, null,
+                () -> generateSqlByFields(metadata.getColumns(), getPrefixedTableName(metadata)));
         try (Connection conn = DatabaseConfig.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            generateStatementByEntity(entity, fields, stmt);
-            stmt.executeUpdate();
+            generateStatementByEntity(entity, metadata.getColumns(), stmt);
+            final long start = System.nanoTime();
+            final int rows = stmt.executeUpdate();
+            QueryMetrics.record(metricKey(metadata, Operation.INSERT), sql, start, rows, entity);
+            markWritten(metadata, entity);
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    return generatedKeys.getLong(1);
+                    final long generatedKey = generatedKeys.getLong(1);
+                    DatabaseConfig.markWritten(routingKey(metadata, generatedKey));
+                    return generatedKey;
                 } else {
                     return 0;
                 }
@@ -54,25 +62,141 @@ public class DatabaseUtils<T> {
      * @throws IllegalAccessException If the entity fields are not accessible.
      */
     public void updateObjectInDatabase(final T entity) throws SQLException, IllegalAccessException {
-        final String tableName = DatabaseConfig.tablePrefix + AnnotationUtils.getTableName(entity.getClass());
-        final List<Field> fields = Arrays.stream(entity.getClass().getDeclaredFields())
-                .filter(field -> !AnnotationUtils.isColumnPrimary(field))
-                .collect(Collectors.toList());
-        final String sql = generateSqlForUpdate(fields, tableName, entity);
+        final EntityMetadata<?> metadata = EntityMetadata.of(entity.getClass());
+        final List<ColumnMetadata> columns = metadata.getUpdatableColumns();
+        final String sql = SqlTemplateCache.get(metadata.getEntityClass(), Operation.UPDATE, null, () -> generateSqlForUpdate(metadata));
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             int index = 1;
-            for (Field field : fields) {
-                field.setAccessible(true);
-                stmt.setObject(index++, field.get(entity));
+            for (ColumnMetadata column : columns) {
+                setStatementParameter(stmt, index++, column.getColumnValue(entity));
             }
+            setStatementParameter(stmt, index, metadata.getPrimaryKey().get(entity));
 
-            Field primaryKeyField = getPrimaryKeyField(entity.getClass());
-            primaryKeyField.setAccessible(true);
-            stmt.setObject(index, primaryKeyField.get(entity));
+            final long start = System.nanoTime();
+            final int rows = stmt.executeUpdate();
+            QueryMetrics.record(metricKey(metadata, Operation.UPDATE), sql, start, rows, entity);
+            markWritten(metadata, entity);
+        }
+    }
 
-            stmt.executeUpdate();
+    /**
+     * Saves multiple entities of the same type with a single JDBC batch on one connection.
+     * The batch is committed as a whole, on failure nothing is written.
+     *
+     * @param entities The entities to be saved.
+     * @return The generated keys in the order of the given entities, empty if the table has no generated keys.
+     * @throws SQLException           If a database access error occurs.
+     * @throws IllegalAccessException If the entity fields are not accessible.
+     */
+    public List<Long> saveObjectsToDatabase(final Collection<T> entities) throws SQLException, IllegalAccessException {
+        final List<Long> generatedKeys = new ArrayList<>(entities.size());
+        if (entities.isEmpty()) {
+            return generatedKeys;
+        }
+        final EntityMetadata<?> metadata = EntityMetadata.of(entities.iterator().next().getClass());
+        final var sql = SqlTemplateCache.get(metadata.getEntityClass(), Operation.INSERT, null,
+                () -> generateSqlByFields(metadata.getColumns(), getPrefixedTableName(metadata)));
+        writeBatch(entities, metadata, sql, generatedKeys);
+        return generatedKeys;
+    }
+
+    /**
+     * Inserts an entity, or updates the existing row with the same key, in a single statement.
+     * Columns whose value is null keep their stored value, so partially filled entities never
+     * clear existing data; use {@link #updateObjectInDatabase(Object)} to set a column to null.
+     *
+     * @param entity The entity to be saved.
+     * @return The generated key if a row with an auto increment key was inserted, 0 otherwise.
+     * @throws SQLException           If a database access error occurs.
+     * @throws IllegalAccessException If the entity fields are not accessible.
+     */
+    public long upsertObjectInDatabase(final T entity) throws SQLException, IllegalAccessException {
+        final EntityMetadata<?> metadata = EntityMetadata.of(entity.getClass());
+        final var sql = SqlTemplateCache.get(metadata.getEntityClass(), Operation.UPSERT, null, () -> generateSqlForUpsert(metadata));
+        try (Connection conn = DatabaseConfig.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            generateStatementByEntity(entity, metadata.getColumns(), stmt);
+            final long start = System.nanoTime();
+            final int rows = stmt.executeUpdate();
+            QueryMetrics.record(metricKey(metadata, Operation.UPSERT), sql, start, rows, entity);
+            markWritten(metadata, entity);
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                final long generatedKey = generatedKeys.next() ? generatedKeys.getLong(1) : 0;
+                if (generatedKey != 0) {
+                    DatabaseConfig.markWritten(routingKey(metadata, generatedKey));
+                }
+                return generatedKey;
+            }
+        }
+    }
+
+    /**
+     * Inserts or updates multiple entities of the same type with a single JDBC batch on one connection.
+     * Null values keep the stored value, see {@link #upsertObjectInDatabase(Object)}.
+     * The batch is committed as a whole, on failure nothing is written.
+     *
+     * @param entities The entities to be saved.
+     * @throws SQLException           If a database access error occurs.
+     * @throws IllegalAccessException If the entity fields are not accessible.
+     */
+    public void upsertObjectsInDatabase(final Collection<T> entities) throws SQLException, IllegalAccessException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        final EntityMetadata<?> metadata = EntityMetadata.of(entities.iterator().next().getClass());
+        final var sql = SqlTemplateCache.get(metadata.getEntityClass(), Operation.UPSERT, null, () -> generateSqlForUpsert(metadata));
+        writeBatch(entities, metadata, sql, null);
+    }
+
+    /**
+     * Updates multiple existing entities of the same type with a single JDBC batch on one connection.
+     * The batch is committed as a whole, on failure nothing is written.
+     *
+     * @param entities The entities to be updated.
+     * @throws SQLException           If a database access error occurs.
+     * @throws IllegalAccessException If the entity fields are not accessible.
+     */
+    public void updateObjectsInDatabase(final Collection<T> entities) throws SQLException, IllegalAccessException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        final EntityMetadata<?> metadata = EntityMetadata.of(entities.iterator().next().getClass());
+        final List<ColumnMetadata> columns = metadata.getUpdatableColumns();
+        final String sql = SqlTemplateCache.get(metadata.getEntityClass(), Operation.UPDATE, null, () -> generateSqlForUpdate(metadata));
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            final long start = System.nanoTime();
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (T entity : entities) {
+                    int index = 1;
+                    for (ColumnMetadata column : columns) {
+                        setStatementParameter(stmt, index++, column.getColumnValue(entity));
+                    }
+                    setStatementParameter(stmt, index, metadata.getPrimaryKey().get(entity));
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                QueryMetrics.record(metricKey(metadata, Operation.UPDATE) + ".batch", sql, start, entities.size(), "batch of " + entities.size());
+                for (T entity : entities) {
+                    markWritten(metadata, entity);
+                }
+            } catch (SQLException | IllegalAccessException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         }
     }
 
@@ -85,15 +209,57 @@ public class DatabaseUtils<T> {
      * @throws SQLException If a database access error occurs.
      */
     public CustomResultSet<T> findById(final Class<T> entityClass, final Object id) throws SQLException {
-        final String tableNameWithAlias = getTableNameWithAlias(getPrefixedTableName(entityClass), entityClass);
-        final String selectClause = generateSelectClauseWithAliases(entityClass);
-        final String joinString = generateJoinString(entityClass);
-        final String primaryKeyFieldName = getPrimaryKeyFieldName(entityClass);
+        final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        final String sql = SqlTemplateCache.get(entityClass, Operation.SELECT_BY_ID, null,
+                () -> generateSelect(metadata) + " WHERE " + metadata.getAlias() + "." + metadata.getPrimaryKey().getName() + " = ?");
+        return executeQuery(metricKey(metadata, Operation.SELECT_BY_ID), routingKey(metadata, id), entityClass, sql, id);
+    }
 
-        final String sql = selectClause + " FROM " + tableNameWithAlias + joinString +
-                " WHERE " + entityClass.getSimpleName() + "." + primaryKeyFieldName + " = ?";
-        System.out.println(sql);
-        return executeQuery(entityClass, sql, id);
+    /**
+     * Deletes an entity by its ID.
+     *
+     * @param entityClass The class of the entity.
+     * @param id          The ID of the entity to delete.
+     * @return true if a row was deleted.
+     * @throws SQLException If a database access error occurs.
+     */
+    public boolean deleteById(final Class<T> entityClass, final Object id) throws SQLException {
+        final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        final String sql = SqlTemplateCache.get(entityClass, Operation.DELETE_BY_ID, null,
+                () -> "DELETE FROM " + getPrefixedTableName(metadata) + " WHERE " + metadata.getPrimaryKey().getName() + " = ?");
+        try (Connection conn = DatabaseConfig.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, id);
+            final long start = System.nanoTime();
+            final int rows = stmt.executeUpdate();
+            QueryMetrics.record(metricKey(metadata, Operation.DELETE_BY_ID), sql, start, rows, id);
+            DatabaseConfig.markWritten(routingKey(metadata, id));
+            return rows > 0;
+        }
+    }
+
+    /**
+     * Locks the row of an entity until the running transaction ends, so concurrent transactions
+     * changing the same entity are serialized. Must be called inside a {@link TransactionManager} transaction.
+     *
+     * @param entityClass The class of the entity.
+     * @param id          The ID of the entity to lock.
+     * @return true if the row exists.
+     * @throws SQLException If a database access error occurs.
+     */
+    public boolean lockById(final Class<T> entityClass, final Object id) throws SQLException {
+        final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        final String sql = SqlTemplateCache.get(entityClass, Operation.LOCK_BY_ID, null,
+                () -> "SELECT " + metadata.getPrimaryKey().getName() + " FROM " + getPrefixedTableName(metadata)
+                        + " WHERE " + metadata.getPrimaryKey().getName() + " = ?" + DatabaseConfig.getDialect().getRowLockClause());
+        try (Connection conn = DatabaseConfig.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, id);
+            final long start = System.nanoTime();
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                final boolean found = resultSet.next();
+                QueryMetrics.record(metricKey(metadata, Operation.LOCK_BY_ID), sql, start, found ? 1 : 0, id);
+                return found;
+            }
+        }
     }
 
     /**
@@ -104,11 +270,40 @@ public class DatabaseUtils<T> {
      * @throws SQLException If a database access error occurs.
      */
     public CustomResultSet<T> findAll(final Class<T> entityClass) throws SQLException {
-        final String tableName = getTableNameWithAlias(getPrefixedTableName(entityClass), entityClass);
-        final String selectClause = generateSelectClauseWithAliases(entityClass);
-        final String joinString = generateJoinString(entityClass);
-        final String sql = selectClause + " FROM " + tableName + joinString;
-        return executeQuery(entityClass, sql);
+        final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        final String sql = SqlTemplateCache.get(entityClass, Operation.SELECT_ALL, null, () -> generateSelect(metadata));
+        return executeQuery(metricKey(metadata, Operation.SELECT_ALL), null, entityClass, sql);
+    }
+
+    /**
+     * Opens a cursor over all entities of a certain class. Rows are fetched in chunks of the configured
+     * fetch size and mapped while the result is iterated, so memory use does not grow with the table size.
+     * The returned result holds a pooled connection until it is closed.
+     *
+     * @param entityClass The class of the entities to retrieve.
+     * @return A streaming CustomResultSet over all entities.
+     * @throws SQLException If a database access error occurs.
+     */
+    public CustomResultSet<T> streamAll(final Class<T> entityClass) throws SQLException {
+        final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        final String sql = SqlTemplateCache.get(entityClass, Operation.SELECT_ALL, null, () -> generateSelect(metadata));
+        return openCursor(metricKey(metadata, Operation.SELECT_ALL) + ".cursor", EntityRowMapper.of(entityClass), sql);
+    }
+
+    /**
+     * Reads one page of all entities of a certain class, ordered by primary key.
+     *
+     * @param entityClass The class of the entities to retrieve.
+     * @param cursor      The cursor of the previous page, or null for the first page.
+     * @param pageSize    The maximum number of entities on the page.
+     * @return The page of entities.
+     * @throws SQLException If a database access error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    public Page<T> findPage(final Class<T> entityClass, final Object cursor, final int pageSize) throws SQLException {
+        final ProjectionQuery<T> query = (ProjectionQuery<T>) PAGE_QUERIES.computeIfAbsent(entityClass,
+                key -> ProjectionQuery.select(entityClass).keyset(EntityMetadata.of(entityClass).getPrimaryKey().getField().getName(), false));
+        return queryPage(metricKey(EntityMetadata.of(entityClass), Operation.SELECT_ALL) + ".page", null, query, cursor, pageSize);
     }
 
     /**
@@ -121,145 +316,378 @@ public class DatabaseUtils<T> {
      * @throws SQLException If a database access error occurs.
      */
     public CustomResultSet<T> findByField(Class<T> entityClass, Field searchField, Object searchValue) throws SQLException {
-        final String tableNameWithAlias = getTableNameWithAlias(getPrefixedTableName(entityClass), entityClass);
-        final String selectClause = generateSelectClauseWithAliases(entityClass);
-        final String joinString = generateJoinString(entityClass);
-        final String columnName = AnnotationUtils.getColumnName(searchField);
-
-        if (columnName == null) {
-            throw new IllegalArgumentException("Field " + searchField.getName() + " has no Column-Annotation.");
-        }
+        return findByField(entityClass, searchField.getName(), searchValue);
+    }
 
-        final String sql = selectClause + " FROM " + tableNameWithAlias + joinString +
-                " WHERE " + entityClass.getSimpleName() + "." + columnName + " = ?";
-        return executeQuery(entityClass, sql, searchValue);
+    /**
+     * Finds entities based on a specific field and its value.
+     *
+     * @param entityClass     The class of the entities.
+     * @param searchFieldName The name of the Java field to search by.
+     * @param searchValue     The value to search for.
+     * @return A CustomResultSet containing the found entities.
+     * @throws SQLException If a database access error occurs.
+     */
+    public CustomResultSet<T> findByField(Class<T> entityClass, String searchFieldName, Object searchValue) throws SQLException {
+        final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+        final String sql = SqlTemplateCache.get(entityClass, Operation.SELECT_BY_FIELD, searchFieldName,
+                () -> generateSelect(metadata) + " WHERE " + metadata.getAlias() + "." + metadata.getColumnByField(searchFieldName).getName() + " = ?");
+        return executeQuery(metricKey(metadata, Operation.SELECT_BY_FIELD) + "." + searchFieldName, routingKey(metadata, searchValue), entityClass, sql, searchValue);
     }
 
-    private String generateSqlForUpdate(List<Field> fields, String tableName, T entity) {
-        String fieldAssignments = fields.stream()
-                .map(field -> AnnotationUtils.getColumnName(field) + " = ?")
+    private String generateSqlForUpdate(final EntityMetadata<?> metadata) {
+        String fieldAssignments = metadata.getUpdatableColumns().stream()
+                .map(column -> column.getName() + " = ?")
                 .collect(Collectors.joining(", "));
 
-        Field primaryKeyField = getPrimaryKeyField(entity.getClass());
-        String primaryKeyColumnName = AnnotationUtils.getColumnName(primaryKeyField);
+        return "UPDATE " + getPrefixedTableName(metadata) + " SET " + fieldAssignments + " WHERE " + metadata.getPrimaryKey().getName() + " = ?";
+    }
 
-        return "UPDATE " + tableName + " SET " + fieldAssignments + " WHERE " + primaryKeyColumnName + " = ?";
+    private String generateSqlForUpsert(final EntityMetadata<?> metadata) {
+        final List<String> updateColumns = metadata.getUpdatableColumns().stream().map(ColumnMetadata::getName).toList();
+        return generateSqlByFields(metadata.getColumns(), getPrefixedTableName(metadata))
+                + DatabaseConfig.getDialect().getUpsertClause(metadata.getPrimaryKey().getName(), updateColumns);
     }
 
-    private Field getPrimaryKeyField(Class<?> clazz) {
-        return Arrays.stream(clazz.getDeclaredFields())
-                .filter(AnnotationUtils::isColumnPrimary)
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("No Primary Key found in this Class"));
+    /**
+     * Binds all columns of every entity to the given insert statement and executes it in batches on one connection.
+     * If the dialect cannot return generated keys for a batch, the rows are inserted one by one in the same transaction.
+     *
+     * @param generatedKeys Receives the generated keys, or null if they are not needed.
+     */
+    private void writeBatch(final Collection<T> entities, final EntityMetadata<?> metadata, final String sql, final List<Long> generatedKeys) throws SQLException, IllegalAccessException {
+        final boolean batchKeys = generatedKeys == null || DatabaseConfig.getDialect().supportsBatchGeneratedKeys();
+        final String metricKey = metricKey(metadata, generatedKeys == null ? Operation.UPSERT : Operation.INSERT) + ".batch";
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            final long start = System.nanoTime();
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = generatedKeys != null ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (T entity : entities) {
+                    generateStatementByEntity(entity, metadata.getColumns(), stmt);
+                    if (!batchKeys) {
+                        stmt.executeUpdate();
+                        readGeneratedKeys(stmt, generatedKeys);
+                        continue;
+                    }
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        executeBatch(stmt, generatedKeys);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    executeBatch(stmt, generatedKeys);
+                }
+                conn.commit();
+                QueryMetrics.record(metricKey, sql, start, entities.size(), "batch of " + entities.size());
+                for (T entity : entities) {
+                    markWritten(metadata, entity);
+                }
+                if (generatedKeys != null) {
+                    generatedKeys.forEach(generatedKey -> DatabaseConfig.markWritten(routingKey(metadata, generatedKey)));
+                }
+            } catch (SQLException | IllegalAccessException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
     }
 
+    private CustomResultSet<T> executeQuery(String metricKey, Object routingKey, Class<T> entityClass, String sql, Object... params) throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection(routingKey);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                setStatementParameter(stmt, i + 1, params[i]);
+            }
+            final long start = System.nanoTime();
+            ResultSet resultSet = stmt.executeQuery();
+            final CustomResultSet<T> result = new CustomResultSet<>(resultSet, entityClass);
+            QueryMetrics.record(metricKey, sql, start, result.getResults().size(), params);
+            return result;
+        }
+    }
+
+    /**
+     * Executes a projection query and maps every row with the query's row mapper.
+     *
+     * @param metricKey  The key the execution is recorded under in {@link QueryMetrics}.
+     * @param routingKey The key the lookup is for, see {@link DatabaseConfig#getReadConnection(Object)}.
+     * @param query      The query to execute.
+     * @param params     The parameters bound to the placeholders of the query.
+     * @param <R>        The type of the mapped result.
+     * @return The mapped rows.
+     * @throws SQLException If a database access error occurs.
+     */
+    protected <R> List<R> query(final String metricKey, final Object routingKey, final ProjectionQuery<R> query, final Object... params) throws SQLException {
+        final String sql = query.toSql();
+        try (Connection conn = DatabaseConfig.getReadConnection(routingKey);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                setStatementParameter(stmt, i + 1, params[i]);
+            }
+            final long start = System.nanoTime();
+            final CustomResultSet<R> result = new CustomResultSet<>(stmt.executeQuery(), query.getRowMapper());
+            QueryMetrics.record(metricKey, sql, start, result.getResults().size(), params);
+            return new ArrayList<>(result.getResults());
+        }
+    }
+
+    /**
+     * Executes a projection query with an IN list for every chunk of the given keys and collects all rows.
+     * The query must contain exactly {@code chunkSize} IN-list placeholders before any other placeholder, see
+     * {@link #inList(int)}. The last chunk is padded by repeating its last key, so every chunk runs the same
+     * prepared statement. All chunks are read on one connection.
+     *
+     * @param metricKey      The key the executions are recorded under in {@link QueryMetrics}.
+     * @param query          The query to execute.
+     * @param chunkSize      The number of IN-list placeholders of the query.
+     * @param keys           The keys bound to the IN list.
+     * @param trailingParams The parameters bound to the placeholders after the IN list.
+     * @param <R>            The type of the mapped result.
+     * @return The mapped rows of all chunks.
+     * @throws SQLException If a database access error occurs.
+     */
+    protected <R> List<R> queryInChunks(final String metricKey, final ProjectionQuery<R> query, final int chunkSize,
+                                        final Collection<?> keys, final Object... trailingParams) throws SQLException {
+        final List<R> results = new ArrayList<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
+        final String sql = query.toSql();
+        final List<?> keyList = new ArrayList<>(keys);
+        try (Connection conn = DatabaseConfig.getReadConnection(null);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int offset = 0; offset < keyList.size(); offset += chunkSize) {
+                final List<?> chunk = keyList.subList(offset, Math.min(offset + chunkSize, keyList.size()));
+                for (int i = 0; i < chunkSize; i++) {
+                    setStatementParameter(stmt, i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                for (int i = 0; i < trailingParams.length; i++) {
+                    setStatementParameter(stmt, chunkSize + i + 1, trailingParams[i]);
+                }
+                final long start = System.nanoTime();
+                final CustomResultSet<R> result = new CustomResultSet<>(stmt.executeQuery(), query.getRowMapper());
+                QueryMetrics.record(metricKey, sql, start, result.getResults().size(), "chunk of " + chunk.size());
+                results.addAll(result.getResults());
+            }
+        }
+        return results;
+    }
 
-    private CustomResultSet<T> executeQuery(Class<T> entityClass, String sql, Object... params) throws SQLException {
+    /**
+     * Executes a hand written statement that changes rows, e.g. a bulk insert or delete.
+     *
+     * @param metricKey The key the execution is recorded under in {@link QueryMetrics}.
+     * @param sql       The statement with {@code ?} placeholders and prefixed table names.
+     * @param params    The parameters bound to the placeholders.
+     * @return The number of changed rows.
+     * @throws SQLException If a database access error occurs.
+     */
+    protected int executeUpdate(final String metricKey, final String sql, final Object... params) throws SQLException {
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             for (int i = 0; i < params.length; i++) {
                 setStatementParameter(stmt, i + 1, params[i]);
             }
-            ResultSet resultSet = stmt.executeQuery();
-            return new CustomResultSet<>(resultSet, entityClass);
+            final long start = System.nanoTime();
+            final int rows = stmt.executeUpdate();
+            QueryMetrics.record(metricKey, sql, start, rows, params);
+            return rows;
         }
     }
 
-    protected String getPrefixedTableName(final Class<?> entityClass) {
-        return DatabaseConfig.tablePrefix + AnnotationUtils.getTableName(entityClass);
-    }
-
-    private String getTableNameWithAlias(final String prefixedTableName, final Class<?> entityClass) {
-        return prefixedTableName + " AS " + entityClass.getSimpleName();
-    }
-
-    protected String generateJoinString(final Class<?> entityClass) {
-        StringBuilder joinString = new StringBuilder();
-        String tableName = getPrefixedTableName(entityClass);
-
-        for (Field field : entityClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(OneToMany.class)) {
-                OneToMany oneToMany = field.getAnnotation(OneToMany.class);
-                Class<?> foreignClass = field.getType();
-                String foreignTableName = getPrefixedTableName(foreignClass);
-                String foreignKeyField = oneToMany.foreignKeyField();
-                String primaryKeyField = getPrimaryKeyFieldName(foreignClass);
-
-                joinString.append(" LEFT JOIN ")
-                        .append(foreignTableName)
-                        .append(" ON ")
-                        .append(foreignTableName)
-                        .append(".")
-                        .append(primaryKeyField)
-                        .append("=")
-                        .append(tableName)
-                        .append(".")
-                        .append(foreignKeyField)
-                        .append(" ");
+    /**
+     * Executes a hand written query selecting a single numeric column, e.g. the ids of rows to process.
+     * The query always runs on the primary database.
+     *
+     * @param metricKey The key the execution is recorded under in {@link QueryMetrics}.
+     * @param sql       The query with {@code ?} placeholders and prefixed table names.
+     * @param params    The parameters bound to the placeholders.
+     * @return The values of the first column of every row.
+     * @throws SQLException If a database access error occurs.
+     */
+    protected List<Long> queryForLongs(final String metricKey, final String sql, final Object... params) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                setStatementParameter(stmt, i + 1, params[i]);
+            }
+            final long start = System.nanoTime();
+            final List<Long> values = new ArrayList<>();
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    values.add(resultSet.getLong(1));
+                }
+            }
+            QueryMetrics.record(metricKey, sql, start, values.size(), params);
+            return values;
+        }
+    }
+
+    /**
+     * Renders the placeholders of an IN list.
+     *
+     * @param size The number of placeholders.
+     * @return The placeholders separated by commas, without parentheses.
+     */
+    protected static String inList(final int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+
+    /**
+     * Reads one page of a keyset paginated projection query.
+     *
+     * @param metricKey  The key the execution is recorded under in {@link QueryMetrics}.
+     * @param routingKey The key the lookup is for, see {@link DatabaseConfig#getReadConnection(Object)}.
+     * @param query      The query to execute, must define a keyset.
+     * @param cursor     The cursor of the previous page, or null for the first page.
+     * @param pageSize   The maximum number of rows on the page.
+     * @param params     The parameters bound to the placeholders of the query's condition.
+     * @param <R>        The type of the mapped result.
+     * @return The page, its cursor is null if no further rows exist.
+     * @throws SQLException If a database access error occurs.
+     */
+    protected <R> Page<R> queryPage(final String metricKey, final Object routingKey, final ProjectionQuery<R> query, final Object cursor,
+                                    final int pageSize, final Object... params) throws SQLException {
+        final String sql = query.toPageSql(cursor != null);
+        try (Connection conn = DatabaseConfig.getReadConnection(routingKey);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Object param : params) {
+                setStatementParameter(stmt, index++, param);
+            }
+            if (cursor != null) {
+                setStatementParameter(stmt, index++, cursor);
             }
+            stmt.setInt(index, pageSize);
+            final long start = System.nanoTime();
+            final List<R> items = new ArrayList<>(new CustomResultSet<>(stmt.executeQuery(), query.getRowMapper()).getResults());
+            QueryMetrics.record(metricKey, sql, start, items.size(), params);
+            final Object nextCursor = items.size() < pageSize ? null : query.getKey(items.get(items.size() - 1));
+            return new Page<>(items, nextCursor);
+        } catch (IllegalAccessException e) {
+            throw new SQLException("Could not read the page key", e);
         }
+    }
 
-        return joinString.toString();
+    /**
+     * Builds the read-your-writes routing key of a value of the given entity's table.
+     *
+     * @param entityClass The entity whose table the value is stored in.
+     * @param value       The looked up value, e.g. a key or a name.
+     * @return The routing key, see {@link DatabaseConfig#getReadConnection(Object)}.
+     */
+    protected static Object routingKey(final Class<?> entityClass, final Object value) {
+        return routingKey(EntityMetadata.of(entityClass), value);
     }
 
-    private String generateSelectClauseWithAliases(final Class<?> entityClass) {
-        return generateSelectClauseWithAliases(entityClass, false);
+    private static Object routingKey(final EntityMetadata<?> metadata, final Object value) {
+        return ReadYourWritesTracker.key(metadata.getTableName(), value);
     }
 
-    private String generateSelectClauseWithAliases(final Class<?> entityClass, boolean distinct) {
-        StringBuilder selectClause = new StringBuilder("SELECT ");
-        if (distinct) {
-            selectClause.append("DISTINCT ");
+    /**
+     * Records the keys and names of a written entity for read-your-writes routing: its primary key unless it is
+     * generated, the referenced keys and the string columns looked up by {@link #findByField(Class, String, Object)}.
+     * Generated keys are recorded by the caller once the database returned them.
+     */
+    private void markWritten(final EntityMetadata<?> metadata, final Object entity) throws IllegalAccessException {
+        for (ColumnMetadata column : metadata.getColumns()) {
+            final Object value = column.getColumnValue(entity);
+            if ((column.isPrimary() && !isEmptyPrimary(column, value)) || column.isForeignKey() || value instanceof String) {
+                DatabaseConfig.markWritten(routingKey(metadata, value));
+            }
         }
-        boolean[] isFirstColumn = new boolean[]{true};
+    }
+
+    private String metricKey(final EntityMetadata<?> metadata, final Operation operation) {
+        return metadata.getAlias() + "." + operation;
+    }
+
+    private CustomResultSet<T> openCursor(String metricKey, RowMapper<T> rowMapper, String sql, Object... params) throws SQLException {
+        final Connection conn = DatabaseConfig.getReadConnection(null);
+        try {
+            final PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(DatabaseConfig.fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                setStatementParameter(stmt, i + 1, params[i]);
+            }
+            final long start = System.nanoTime();
+            final ResultSet resultSet = stmt.executeQuery();
+            QueryMetrics.record(metricKey, sql, start, 0, params);
+            return CustomResultSet.streaming(conn, stmt, resultSet, rowMapper);
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
 
-        appendColumnAliases(entityClass, selectClause, isFirstColumn);
+    private void executeBatch(final PreparedStatement stmt, final List<Long> generatedKeys) throws SQLException {
+        stmt.executeBatch();
+        if (generatedKeys != null) {
+            readGeneratedKeys(stmt, generatedKeys);
+        }
+    }
 
-        for (Field field : entityClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(OneToMany.class)) {
-                Class<?> foreignClass = field.getType();
-                appendColumnAliases(foreignClass, selectClause, isFirstColumn);
+    private void readGeneratedKeys(final PreparedStatement stmt, final List<Long> generatedKeys) throws SQLException {
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            while (keys.next()) {
+                generatedKeys.add(keys.getLong(1));
             }
         }
+    }
+
+    protected String getPrefixedTableName(final Class<?> entityClass) {
+        return getPrefixedTableName(EntityMetadata.of(entityClass));
+    }
+
+    private String getPrefixedTableName(final EntityMetadata<?> metadata) {
+        return DatabaseConfig.tablePrefix + metadata.getTableName();
+    }
+
+    private String generateSelect(final EntityMetadata<?> metadata) {
+        return generateSelectClauseWithAliases(metadata) + " FROM " + ProjectionQuery.renderFrom(metadata, null);
+    }
+
+    private String generateSelectClauseWithAliases(final EntityMetadata<?> metadata) {
+        StringBuilder selectClause = new StringBuilder("SELECT ");
+        boolean[] isFirstColumn = new boolean[]{true};
+
+        appendColumnAliases(metadata, selectClause, isFirstColumn);
+
+        for (ColumnMetadata foreignKey : metadata.getForeignKeys()) {
+            appendColumnAliases(EntityMetadata.of(foreignKey.getType()), selectClause, isFirstColumn);
+        }
 
         return selectClause.toString();
     }
 
 
-    private void appendColumnAliases(Class<?> entityClass, StringBuilder selectClause, boolean[] isFirstColumn) {
-        for (Field field : entityClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Column.class)) {
-                if (!isFirstColumn[0]) {
-                    selectClause.append(", ");
-                }
-                Column columnAnnotation = field.getAnnotation(Column.class);
-                selectClause.append(entityClass.getSimpleName())
-                        .append(".")
-                        .append(columnAnnotation.name())
-                        .append(" AS ")
-                        .append(entityClass.getSimpleName())
-                        .append("_")
-                        .append(field.getName());
-                isFirstColumn[0] = false;
+    private void appendColumnAliases(EntityMetadata<?> metadata, StringBuilder selectClause, boolean[] isFirstColumn) {
+        for (ColumnMetadata column : metadata.getSelectableColumns()) {
+            if (!isFirstColumn[0]) {
+                selectClause.append(", ");
             }
+            selectClause.append(metadata.getAlias())
+                    .append(".")
+                    .append(column.getName())
+                    .append(" AS ")
+                    .append(column.getSelectLabel());
+            isFirstColumn[0] = false;
         }
     }
 
 
-    private String generateSqlByFields(final List<Field> fields, final String tableName) {
+    private String generateSqlByFields(final List<ColumnMetadata> columns, final String tableName) {
         List<String> columnNames = new ArrayList<>();
         List<String> valuePlaceholders = new ArrayList<>();
 
-        for (Field field : fields) {
-            if (field.isAnnotationPresent(Column.class)) {
-                Column columnAnnotation = field.getAnnotation(Column.class);
-                columnNames.add(columnAnnotation.name());
-                valuePlaceholders.add("?");
-            } else if (field.isAnnotationPresent(OneToMany.class)) {
-                OneToMany oneToManyAnnotation = field.getAnnotation(OneToMany.class);
-                columnNames.add(oneToManyAnnotation.foreignKeyField());
-                valuePlaceholders.add("?");
-            }
+        for (ColumnMetadata column : columns) {
+            columnNames.add(column.getName());
+            valuePlaceholders.add("?");
         }
 
         String columnsJoined = String.join(", ", columnNames);
@@ -269,13 +697,11 @@ public class DatabaseUtils<T> {
     }
 
 
-    private void generateStatementByEntity(final T entity, final List<Field> fields, PreparedStatement stmt) throws SQLException, IllegalAccessException {
+    private void generateStatementByEntity(final T entity, final List<ColumnMetadata> columns, PreparedStatement stmt) throws SQLException, IllegalAccessException {
         int i = 1;
-        for (Field field : fields) {
-            field.setAccessible(true);
-
-            var parameter = field.get(entity);
-            if (isEmptyPrimary(field, parameter)) {
+        for (ColumnMetadata column : columns) {
+            var parameter = column.getColumnValue(entity);
+            if (isEmptyPrimary(column, parameter)) {
                 parameter = null;
             }
 
@@ -284,8 +710,8 @@ public class DatabaseUtils<T> {
         }
     }
 
-    private boolean isEmptyPrimary(Field field, Object parameter) {
-        if (AnnotationUtils.isColumnPrimary(field)) {
+    private boolean isEmptyPrimary(ColumnMetadata column, Object parameter) {
+        if (column.isPrimary()) {
             if (parameter instanceof Long) {
                 return (long) parameter == 0;
             } else if (parameter instanceof Integer) {
@@ -295,15 +721,6 @@ public class DatabaseUtils<T> {
         return false;
     }
 
-
-    private String getPrimaryKeyFieldName(final Class<?> entityClass) {
-        return Arrays.stream(entityClass.getDeclaredFields())
-                .filter(AnnotationUtils::isColumnPrimary)
-                .findFirst()
-                .map(AnnotationUtils::getColumnName)
-                .orElseThrow(() -> new IllegalArgumentException("No Primary Key found in Klass"));
-    }
-
     private void setStatementParameter(PreparedStatement stmt, int parameterIndex, Object value) throws SQLException {
         if (value == null) {
             stmt.setNull(parameterIndex, java.sql.Types.NULL);
@@ -0,0 +1,164 @@
+package org.pano.playlegendpermissions.store;
+
+import org.pano.playlegendpermissions.config.annotations.AnnotationUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of precompiled mapping information for entity classes.
+ * The annotations of an entity ({@link org.pano.playlegendpermissions.config.annotations.Table},
+ * {@link org.pano.playlegendpermissions.config.annotations.Column} and
+ * {@link org.pano.playlegendpermissions.config.annotations.OneToMany}) are scanned once per class,
+ * every store operation afterwards works on the cached result instead of reflecting again.
+ *
+ * @param <T> The type of the entity.
+ */
+public final class EntityMetadata<T> {
+    private static final Map<Class<?>, EntityMetadata<?>> REGISTRY = new ConcurrentHashMap<>();
+
+    private final Class<T> entityClass;
+    private final String tableName;
+    private final String alias;
+    private final List<ColumnMetadata> columns;
+    private final List<ColumnMetadata> updatableColumns;
+    private final List<ColumnMetadata> selectableColumns;
+    private final List<ColumnMetadata> foreignKeys;
+    private final Map<String, ColumnMetadata> columnsByField;
+    private final ColumnMetadata primaryKey;
+
+    private EntityMetadata(final Class<T> entityClass) {
+        this.entityClass = entityClass;
+        this.tableName = AnnotationUtils.getTableName(entityClass);
+        if (tableName == null) {
+            throw new IllegalArgumentException("Class " + entityClass.getName() + " has no Table-Annotation.");
+        }
+        this.alias = entityClass.getSimpleName();
+
+        final List<ColumnMetadata> allColumns = new ArrayList<>();
+        final List<ColumnMetadata> updatable = new ArrayList<>();
+        final List<ColumnMetadata> selectable = new ArrayList<>();
+        final List<ColumnMetadata> foreign = new ArrayList<>();
+        final Map<String, ColumnMetadata> byField = new HashMap<>();
+        ColumnMetadata primary = null;
+
+        for (Field field : entityClass.getDeclaredFields()) {
+            if (AnnotationUtils.getColumnName(field) == null && !AnnotationUtils.isColumnForeignKey(field)) {
+                continue;
+            }
+            final ColumnMetadata column = new ColumnMetadata(entityClass, field);
+            allColumns.add(column);
+            byField.put(field.getName(), column);
+            if (column.isForeignKey()) {
+                foreign.add(column);
+            } else {
+                selectable.add(column);
+            }
+            if (column.isPrimary()) {
+                if (primary == null) {
+                    primary = column;
+                }
+            } else {
+                updatable.add(column);
+            }
+        }
+
+        this.columns = Collections.unmodifiableList(allColumns);
+        this.updatableColumns = Collections.unmodifiableList(updatable);
+        this.selectableColumns = Collections.unmodifiableList(selectable);
+        this.foreignKeys = Collections.unmodifiableList(foreign);
+        this.columnsByField = Collections.unmodifiableMap(byField);
+        this.primaryKey = primary;
+    }
+
+    /**
+     * Returns the metadata of an entity class, scanning the class on first use.
+     *
+     * @param entityClass The entity class.
+     * @param <T>         The type of the entity.
+     * @return The cached metadata of the class.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMetadata<T> of(final Class<T> entityClass) {
+        return (EntityMetadata<T>) REGISTRY.computeIfAbsent(entityClass, EntityMetadata::new);
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * @return The table name without the configured prefix.
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return The alias used for this table in generated queries.
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return All persisted columns, including foreign keys, in declaration order.
+     */
+    public List<ColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return All persisted columns except the primary key, in declaration order.
+     */
+    public List<ColumnMetadata> getUpdatableColumns() {
+        return updatableColumns;
+    }
+
+    /**
+     * @return The plain columns that are selected for this entity (foreign keys are resolved by joins).
+     */
+    public List<ColumnMetadata> getSelectableColumns() {
+        return selectableColumns;
+    }
+
+    /**
+     * @return The foreign key columns of this entity.
+     */
+    public List<ColumnMetadata> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    /**
+     * Returns the primary key column.
+     *
+     * @return The primary key column.
+     * @throws IllegalArgumentException If the entity declares no primary key.
+     */
+    public ColumnMetadata getPrimaryKey() {
+        if (primaryKey == null) {
+            throw new IllegalArgumentException("No Primary Key found in Klass " + entityClass.getSimpleName());
+        }
+        return primaryKey;
+    }
+
+    /**
+     * Looks up the column mapped to a given field.
+     *
+     * @param fieldName The Java field name.
+     * @return The column metadata.
+     * @throws IllegalArgumentException If the field is not mapped to a column.
+     */
+    public ColumnMetadata getColumnByField(final String fieldName) {
+        final ColumnMetadata column = columnsByField.get(fieldName);
+        if (column == null) {
+            throw new IllegalArgumentException("Field " + fieldName + " has no Column-Annotation.");
+        }
+        return column;
+    }
+}
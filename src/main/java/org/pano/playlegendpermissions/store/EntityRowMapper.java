@@ -0,0 +1,168 @@
+package org.pano.playlegendpermissions.store;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link RowMapper} generated once per entity class from its {@link EntityMetadata}.
+ * Columns are read by index with typed getters in the order in which {@link DatabaseUtils} selects them:
+ * first the plain columns of the entity, then the plain columns of every joined foreign entity.
+ * <p>
+ * If the entity has a constructor whose parameters match its mapped fields in declaration order, the row
+ * is passed straight into that constructor through a single composed {@link MethodHandle}. Otherwise the
+ * entity is created through its no-argument constructor and filled through field setter handles.
+ *
+ * @param <T> The type of the entity.
+ */
+public final class EntityRowMapper<T> implements RowMapper<T> {
+    private static final Map<Class<?>, EntityRowMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+    private static final MethodType ROW_TYPE = MethodType.methodType(Object.class, ResultSet.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, ResultSet.class);
+
+    private final MethodHandle rowHandle;
+
+    private EntityRowMapper(final Class<T> entityClass) {
+        try {
+            final EntityMetadata<T> metadata = EntityMetadata.of(entityClass);
+            final int[] nextIndex = new int[]{1 + metadata.getSelectableColumns().size()};
+            this.rowHandle = buildHandle(metadata, 1, nextIndex, true).asType(ROW_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not generate row mapper for " + entityClass.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the generated mapper for an entity class, generating it on first use.
+     *
+     * @param entityClass The entity class.
+     * @param <T>         The type of the entity.
+     * @return The row mapper for the class.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityRowMapper<T> of(final Class<T> entityClass) {
+        return (EntityRowMapper<T>) MAPPERS.computeIfAbsent(entityClass, EntityRowMapper::new);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T mapRow(final ResultSet resultSet) throws SQLException {
+        try {
+            return (T) (Object) rowHandle.invokeExact(resultSet);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Mapping error", e);
+        }
+    }
+
+    /**
+     * Builds a handle of type {@code (ResultSet)entity} for the given metadata.
+     *
+     * @param metadata          The metadata of the entity to map.
+     * @param firstIndex        The result column index of the first plain column of this entity.
+     * @param nextIndex         The next free result column index for joined entities, advanced while building.
+     * @param includeReferences Whether foreign keys are resolved from joined columns or left empty.
+     */
+    private static MethodHandle buildHandle(final EntityMetadata<?> metadata, final int firstIndex, final int[] nextIndex,
+                                            final boolean includeReferences) throws ReflectiveOperationException {
+        final Class<?> entityClass = metadata.getEntityClass();
+        final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(entityClass, MethodHandles.lookup());
+        final List<ColumnMetadata> columns = includeReferences ? metadata.getColumns() : metadata.getSelectableColumns();
+
+        final List<MethodHandle> readers = new ArrayList<>(columns.size());
+        int index = firstIndex;
+        for (ColumnMetadata column : columns) {
+            if (column.isForeignKey()) {
+                final EntityMetadata<?> foreignMetadata = EntityMetadata.of(column.getType());
+                final int foreignIndex = nextIndex[0];
+                nextIndex[0] += foreignMetadata.getSelectableColumns().size();
+                readers.add(buildHandle(foreignMetadata, foreignIndex, nextIndex, false));
+            } else {
+                readers.add(columnReader(column.getType(), index++));
+            }
+        }
+
+        final Class<?>[] parameterTypes = columns.stream().map(ColumnMetadata::getType).toArray(Class<?>[]::new);
+        final Constructor<?> constructor = findConstructor(entityClass, parameterTypes);
+        if (constructor != null) {
+            MethodHandle handle = lookup.unreflectConstructor(constructor);
+            handle = MethodHandles.filterArguments(handle, 0, readers.toArray(MethodHandle[]::new));
+            return MethodHandles.permuteArguments(handle,
+                    MethodType.methodType(entityClass, ResultSet.class), new int[readers.size()]);
+        }
+        return setterHandle(lookup, entityClass, columns, readers);
+    }
+
+    private static MethodHandle setterHandle(final MethodHandles.Lookup lookup, final Class<?> entityClass,
+                                             final List<ColumnMetadata> columns, final List<MethodHandle> readers) throws ReflectiveOperationException {
+        final MethodHandle constructor = lookup.findConstructor(entityClass, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+        final MethodHandle[] setters = new MethodHandle[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            final MethodHandle setter = lookup.unreflectSetter(columns.get(i).getField());
+            setters[i] = MethodHandles.filterArguments(setter, 1, readers.get(i)).asType(SETTER_TYPE);
+        }
+        final MethodHandle populate = MethodHandles.lookup().findStatic(EntityRowMapper.class, "populate",
+                MethodType.methodType(Object.class, MethodHandle.class, MethodHandle[].class, ResultSet.class));
+        return MethodHandles.insertArguments(populate, 0, constructor, setters)
+                .asType(MethodType.methodType(entityClass, ResultSet.class));
+    }
+
+    @SuppressWarnings("unused")
+    private static Object populate(final MethodHandle constructor, final MethodHandle[] setters, final ResultSet resultSet) throws Throwable {
+        final Object entity = (Object) constructor.invokeExact();
+        for (MethodHandle setter : setters) {
+            setter.invokeExact(entity, resultSet);
+        }
+        return entity;
+    }
+
+    private static Constructor<?> findConstructor(final Class<?> entityClass, final Class<?>[] parameterTypes) {
+        for (Constructor<?> constructor : entityClass.getDeclaredConstructors()) {
+            if (Arrays.equals(constructor.getParameterTypes(), parameterTypes)) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a handle of type {@code (ResultSet)type} reading the column at the given index with a typed getter.
+     */
+    private static MethodHandle columnReader(final Class<?> type, final int index) throws ReflectiveOperationException {
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        final MethodHandle getter;
+        if (type == long.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getLong", MethodType.methodType(long.class, int.class));
+        } else if (type == int.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getInt", MethodType.methodType(int.class, int.class));
+        } else if (type == boolean.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getBoolean", MethodType.methodType(boolean.class, int.class));
+        } else if (type == double.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getDouble", MethodType.methodType(double.class, int.class));
+        } else if (type == String.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getString", MethodType.methodType(String.class, int.class));
+        } else if (type == Timestamp.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getTimestamp", MethodType.methodType(Timestamp.class, int.class));
+        } else if (type == Date.class) {
+            getter = lookup.findVirtual(ResultSet.class, "getDate", MethodType.methodType(Date.class, int.class));
+        } else {
+            final MethodHandle getObject = lookup.findVirtual(ResultSet.class, "getObject",
+                    MethodType.methodType(Object.class, int.class, Class.class));
+            return MethodHandles.insertArguments(getObject, 1, index, type)
+                    .asType(MethodType.methodType(type, ResultSet.class));
+        }
+        return MethodHandles.insertArguments(getter, 1, index);
+    }
+}
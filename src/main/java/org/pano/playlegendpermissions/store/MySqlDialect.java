@@ -0,0 +1,121 @@
+package org.pano.playlegendpermissions.store;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Dialect for MySQL and MariaDB servers.
+ * Enables the driver side prepared statement cache and batch rewriting by default,
+ * both can be overridden in {@code database.pool.properties.mysql}.
+ */
+public class MySqlDialect implements SqlDialect {
+    static final String NAME = "mysql";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void configure(final HikariConfig config, final JavaPlugin plugin) {
+        String host = plugin.getConfig().getString("database.host");
+        String port = plugin.getConfig().getString("database.port");
+        String dbname = plugin.getConfig().getString("database.dbname");
+
+        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + dbname);
+        config.setUsername(plugin.getConfig().getString("database.user"));
+        config.setPassword(plugin.getConfig().getString("database.password"));
+        addDriverProperties(config);
+    }
+
+    /**
+     * Configures a pool for the read replica from {@code database.replica}.
+     * Database name, user and password default to the primary settings.
+     *
+     * @param config The pool configuration to fill.
+     * @param plugin The JavaPlugin instance for accessing configuration.
+     */
+    public void configureReplica(final HikariConfig config, final JavaPlugin plugin) {
+        String host = plugin.getConfig().getString("database.replica.host");
+        String port = plugin.getConfig().getString("database.replica.port", plugin.getConfig().getString("database.port"));
+        String dbname = plugin.getConfig().getString("database.replica.dbname", plugin.getConfig().getString("database.dbname"));
+
+        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + dbname);
+        config.setUsername(plugin.getConfig().getString("database.replica.user", plugin.getConfig().getString("database.user")));
+        config.setPassword(plugin.getConfig().getString("database.replica.password", plugin.getConfig().getString("database.password")));
+        addDriverProperties(config);
+    }
+
+    private void addDriverProperties(final HikariConfig config) {
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("useCursorFetch", "true");
+    }
+
+    @Override
+    public String getMigrationLocation() {
+        return "db/migration/mysql";
+    }
+
+    @Override
+    public String getUpsertClause(final String keyColumn, final List<String> updateColumns) {
+        return " ON DUPLICATE KEY UPDATE " + updateColumns.stream()
+                .map(column -> column + " = COALESCE(VALUES(" + column + "), " + column + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public boolean supportsBatchGeneratedKeys() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsTransactionIsolation() {
+        return true;
+    }
+
+    /**
+     * MySQL commits implicitly before and after every DDL statement.
+     */
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return false;
+    }
+
+    @Override
+    public String getRowLockClause() {
+        return " FOR UPDATE";
+    }
+
+    /**
+     * Uses a named user level lock, which is released automatically if the session ends.
+     */
+    @Override
+    public boolean acquireMigrationLock(final Connection conn, final String name, final int timeoutSeconds) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, name);
+            stmt.setInt(2, timeoutSeconds);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) == 1;
+            }
+        }
+    }
+
+    @Override
+    public void releaseMigrationLock(final Connection conn, final String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, name);
+            stmt.executeQuery().close();
+        }
+    }
+}
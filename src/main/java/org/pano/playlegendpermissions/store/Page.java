@@ -0,0 +1,43 @@
+package org.pano.playlegendpermissions.store;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paginated query.
+ * The next page is requested with {@link #getNextCursor()}, which is the sort key of the last row of this page.
+ *
+ * @param <T> The type of the entities on the page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final Object nextCursor;
+
+    /**
+     * Creates a new page.
+     *
+     * @param items      The entities on this page.
+     * @param nextCursor The cursor for the next page, or null if this is the last page.
+     */
+    public Page(final List<T> items, final Object nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The cursor to pass for the next page, or null if this is the last page.
+     */
+    public Object getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true if there may be more rows after this page.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
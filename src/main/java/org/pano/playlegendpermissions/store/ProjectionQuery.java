@@ -0,0 +1,262 @@
+package org.pano.playlegendpermissions.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builder for queries that select exactly the columns consumed by the {@link EntityRowMapper} of a result type.
+ * The select list is derived from the entity metadata in the order the mapper reads it by index: the plain
+ * columns of the result entity followed by the plain columns of every referenced entity. Only the tables
+ * needed for the projection (and those requested with {@link #join(Class)}) are joined to the root table.
+ * <p>
+ * Queries are defined once, typically as constants, and render their SQL lazily for the current table prefix.
+ * Conditions refer to tables by their alias, the simple name of the entity class, e.g. {@code Player.uuid = ?}.
+ * Tables in subqueries are written with the {@code {PREFIX}} placeholder, which is replaced by the table prefix.
+ * <p>
+ * A query with a {@link #keyset(String, boolean) keyset} can additionally be read page by page: every page
+ * continues after the key of the last row of the previous page instead of skipping an offset.
+ *
+ * @param <R> The type of the mapped result.
+ */
+public final class ProjectionQuery<R> {
+    private final Class<R> resultClass;
+    private final Class<?> rootClass;
+    private final Set<Class<?>> joins;
+    private final boolean distinct;
+    private final String where;
+    private final String orderBy;
+    private final String keysetField;
+    private final boolean keysetDescending;
+    private volatile Rendered rendered;
+
+    private ProjectionQuery(final Class<R> resultClass, final Class<?> rootClass, final Set<Class<?>> joins,
+                            final boolean distinct, final String where, final String orderBy,
+                            final String keysetField, final boolean keysetDescending) {
+        this.resultClass = resultClass;
+        this.rootClass = rootClass;
+        this.joins = joins;
+        this.distinct = distinct;
+        this.where = where;
+        this.orderBy = orderBy;
+        this.keysetField = keysetField;
+        this.keysetDescending = keysetDescending;
+    }
+
+    /**
+     * Starts a query mapping rows to the given entity, selecting from the entity's own table.
+     *
+     * @param resultClass The entity class rows are mapped to.
+     * @param <R>         The type of the mapped result.
+     * @return A new query.
+     */
+    public static <R> ProjectionQuery<R> select(final Class<R> resultClass) {
+        return new ProjectionQuery<>(resultClass, resultClass, Set.of(), false, null, null, null, false);
+    }
+
+    /**
+     * @param rootClass The entity whose table is the root of the FROM clause.
+     * @return A copy of this query selecting from the given table.
+     */
+    public ProjectionQuery<R> from(final Class<?> rootClass) {
+        return new ProjectionQuery<>(resultClass, rootClass, joins, distinct, where, orderBy, keysetField, keysetDescending);
+    }
+
+    /**
+     * @param referencedClass An entity referenced by the root entity that is needed in a condition.
+     * @return A copy of this query that additionally joins the given entity.
+     */
+    public ProjectionQuery<R> join(final Class<?> referencedClass) {
+        final Set<Class<?>> newJoins = new LinkedHashSet<>(joins);
+        newJoins.add(referencedClass);
+        return new ProjectionQuery<>(resultClass, rootClass, newJoins, distinct, where, orderBy, keysetField, keysetDescending);
+    }
+
+    /**
+     * @return A copy of this query that removes duplicate rows.
+     */
+    public ProjectionQuery<R> distinct() {
+        return new ProjectionQuery<>(resultClass, rootClass, joins, true, where, orderBy, keysetField, keysetDescending);
+    }
+
+    /**
+     * @param condition The WHERE condition using table aliases and {@code ?} placeholders.
+     * @return A copy of this query with the given condition.
+     */
+    public ProjectionQuery<R> where(final String condition) {
+        return new ProjectionQuery<>(resultClass, rootClass, joins, distinct, condition, orderBy, keysetField, keysetDescending);
+    }
+
+    /**
+     * @param ordering The ORDER BY expression using table aliases.
+     * @return A copy of this query with the given ordering.
+     */
+    public ProjectionQuery<R> orderBy(final String ordering) {
+        return new ProjectionQuery<>(resultClass, rootClass, joins, distinct, where, ordering, keysetField, keysetDescending);
+    }
+
+    /**
+     * Defines the key used for keyset pagination. The key must be unique and is a field of the result entity.
+     *
+     * @param fieldName  The Java field name of the key in the result entity.
+     * @param descending Whether pages are read in descending key order.
+     * @return A copy of this query that can be read with {@link #toPageSql(boolean)}.
+     */
+    public ProjectionQuery<R> keyset(final String fieldName, final boolean descending) {
+        EntityMetadata.of(resultClass).getColumnByField(fieldName);
+        return new ProjectionQuery<>(resultClass, rootClass, joins, distinct, where, orderBy, fieldName, descending);
+    }
+
+    /**
+     * Returns the key of a result row, to be used as the cursor for the next page.
+     *
+     * @param row A row mapped by this query.
+     * @return The value of the keyset field.
+     * @throws IllegalStateException  If no keyset is defined.
+     * @throws IllegalAccessException If the key field is not accessible.
+     */
+    public Object getKey(final R row) throws IllegalAccessException {
+        requireKeyset();
+        return EntityMetadata.of(resultClass).getColumnByField(keysetField).get(row);
+    }
+
+    /**
+     * @return The mapper reading the projected columns by index.
+     */
+    public RowMapper<R> getRowMapper() {
+        return EntityRowMapper.of(resultClass);
+    }
+
+    /**
+     * Renders the SQL for the current table prefix. The result is kept until the prefix changes.
+     *
+     * @return The SQL of this query.
+     */
+    public String toSql() {
+        return getRendered().sql;
+    }
+
+    /**
+     * Renders the SQL for one page. The page size is bound as the last parameter,
+     * for following pages the cursor is bound right before it.
+     *
+     * @param withCursor false for the first page, true for following pages.
+     * @return The SQL of a page of this query.
+     * @throws IllegalStateException If no keyset is defined.
+     */
+    public String toPageSql(final boolean withCursor) {
+        requireKeyset();
+        final Rendered current = getRendered();
+        return withCursor ? current.nextPageSql : current.firstPageSql;
+    }
+
+    private void requireKeyset() {
+        if (keysetField == null) {
+            throw new IllegalStateException("Query for " + resultClass.getSimpleName() + " has no keyset");
+        }
+    }
+
+    private Rendered getRendered() {
+        final String prefix = DatabaseConfig.tablePrefix;
+        Rendered current = rendered;
+        if (current == null || !current.prefix.equals(prefix)) {
+            current = keysetField == null
+                    ? new Rendered(prefix, render(where, orderBy), null, null)
+                    : new Rendered(prefix, render(where, orderBy), renderPage(false), renderPage(true));
+            rendered = current;
+        }
+        return current;
+    }
+
+    private String renderPage(final boolean withCursor) {
+        final EntityMetadata<R> resultMetadata = EntityMetadata.of(resultClass);
+        final String key = resultMetadata.getAlias() + "." + resultMetadata.getColumnByField(keysetField).getName();
+        String condition = where;
+        if (withCursor) {
+            final String seek = key + (keysetDescending ? " < ?" : " > ?");
+            condition = condition == null ? seek : "(" + condition + ") AND " + seek;
+        }
+        return render(condition, key + (keysetDescending ? " DESC" : " ASC")) + " LIMIT ?";
+    }
+
+    private String render(final String condition, final String ordering) {
+        final EntityMetadata<R> resultMetadata = EntityMetadata.of(resultClass);
+        final List<EntityMetadata<?>> projected = new ArrayList<>();
+        projected.add(resultMetadata);
+        for (ColumnMetadata foreignKey : resultMetadata.getForeignKeys()) {
+            projected.add(EntityMetadata.of(foreignKey.getType()));
+        }
+
+        final List<String> columns = new ArrayList<>();
+        for (EntityMetadata<?> metadata : projected) {
+            for (ColumnMetadata column : metadata.getSelectableColumns()) {
+                columns.add(metadata.getAlias() + "." + column.getName());
+            }
+        }
+
+        final Set<Class<?>> joinedClasses = new LinkedHashSet<>(joins);
+        projected.forEach(metadata -> joinedClasses.add(metadata.getEntityClass()));
+
+        final StringBuilder sql = new StringBuilder("SELECT ");
+        if (distinct) {
+            sql.append("DISTINCT ");
+        }
+        sql.append(String.join(", ", columns))
+                .append(" FROM ")
+                .append(renderFrom(EntityMetadata.of(rootClass), joinedClasses));
+        if (condition != null) {
+            sql.append(" WHERE ").append(condition.replace("{PREFIX}", DatabaseConfig.tablePrefix));
+        }
+        if (ordering != null) {
+            sql.append(" ORDER BY ").append(ordering);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Renders the root table with its alias and a LEFT JOIN for every referenced entity in {@code joinedClasses}.
+     *
+     * @param root          The metadata of the root entity.
+     * @param joinedClasses The referenced entities to join, null joins all of them.
+     * @return The FROM clause without the FROM keyword.
+     */
+    static String renderFrom(final EntityMetadata<?> root, final Set<Class<?>> joinedClasses) {
+        final StringBuilder from = new StringBuilder(aliasedTable(root));
+        for (ColumnMetadata foreignKey : root.getForeignKeys()) {
+            if (joinedClasses != null && !joinedClasses.contains(foreignKey.getType())) {
+                continue;
+            }
+            final EntityMetadata<?> foreignMetadata = EntityMetadata.of(foreignKey.getType());
+            from.append(" LEFT JOIN ")
+                    .append(aliasedTable(foreignMetadata))
+                    .append(" ON ")
+                    .append(foreignMetadata.getAlias())
+                    .append(".")
+                    .append(foreignMetadata.getPrimaryKey().getName())
+                    .append("=")
+                    .append(root.getAlias())
+                    .append(".")
+                    .append(foreignKey.getName());
+        }
+        return from.toString();
+    }
+
+    private static String aliasedTable(final EntityMetadata<?> metadata) {
+        return DatabaseConfig.tablePrefix + metadata.getTableName() + " AS " + metadata.getAlias();
+    }
+
+    private static final class Rendered {
+        private final String prefix;
+        private final String sql;
+        private final String firstPageSql;
+        private final String nextPageSql;
+
+        private Rendered(final String prefix, final String sql, final String firstPageSql, final String nextPageSql) {
+            this.prefix = prefix;
+            this.sql = sql;
+            this.firstPageSql = firstPageSql;
+            this.nextPageSql = nextPageSql;
+        }
+    }
+}
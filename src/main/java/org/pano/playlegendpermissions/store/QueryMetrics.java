@@ -0,0 +1,156 @@
+package org.pano.playlegendpermissions.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Collects timing information for every statement executed by the store layer.
+ * For each statement key (entity and operation, or repository method) a latency histogram, the number of
+ * executions and the number of rows read or written are recorded. The time spent waiting for a pooled
+ * connection is recorded separately. Statements slower than the configured threshold are logged
+ * together with their parameters.
+ */
+public final class QueryMetrics {
+    /**
+     * Upper bounds of the latency buckets in milliseconds, the last bucket collects everything above.
+     */
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000};
+    private static final String POOL_WAIT_KEY = "pool.wait";
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static volatile Logger logger = Logger.getLogger(QueryMetrics.class.getName());
+    private static volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Configures the slow-query log.
+     *
+     * @param pluginLogger             The logger slow queries are written to.
+     * @param slowQueryThresholdMillis Statements taking longer are logged, 0 or less disables the log.
+     */
+    public static void configure(final Logger pluginLogger, final long slowQueryThresholdMillis) {
+        logger = pluginLogger;
+        slowQueryThresholdNanos = slowQueryThresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Records an executed statement.
+     *
+     * @param key        The statement key, e.g. {@code Player.SELECT_BY_ID}.
+     * @param sql        The executed SQL, used for the slow-query log.
+     * @param startNanos The {@link System#nanoTime()} before the statement was executed.
+     * @param rows       The number of rows read or written.
+     * @param params     The bound parameters, used for the slow-query log.
+     */
+    public static void record(final String key, final String sql, final long startNanos, final long rows, final Object... params) {
+        final long duration = System.nanoTime() - startNanos;
+        HISTOGRAMS.computeIfAbsent(key, k -> new Histogram()).add(duration, rows);
+        if (duration >= slowQueryThresholdNanos) {
+            logger.warning("Slow query " + key + " took " + TimeUnit.NANOSECONDS.toMillis(duration) + "ms (" + rows + " rows): "
+                    + sql + " " + Arrays.toString(params));
+        }
+    }
+
+    /**
+     * Records the time a caller waited for a connection from the pool.
+     *
+     * @param startNanos The {@link System#nanoTime()} before the connection was requested.
+     */
+    public static void recordPoolWait(final long startNanos) {
+        HISTOGRAMS.computeIfAbsent(POOL_WAIT_KEY, k -> new Histogram()).add(System.nanoTime() - startNanos, 0);
+    }
+
+    /**
+     * Renders one line per statement key with count, rows, mean, max and approximate percentiles,
+     * ordered by total time spent.
+     *
+     * @return The summary lines.
+     */
+    public static List<String> summary() {
+        final List<Map.Entry<String, Histogram>> entries = new ArrayList<>(HISTOGRAMS.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().totalNanos.sum(), a.getValue().totalNanos.sum()));
+        final List<String> lines = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Histogram> entry : entries) {
+            lines.add(entry.getKey() + ": " + entry.getValue());
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the {@link #summary()} to the configured logger.
+     */
+    public static void logSummary() {
+        final List<String> lines = summary();
+        if (lines.isEmpty()) {
+            return;
+        }
+        logger.info("Database statement statistics:");
+        lines.forEach(line -> logger.info("  " + line));
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public static void reset() {
+        HISTOGRAMS.clear();
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void add(final long nanos, final long rowCount) {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the given percentile, or "&gt;1000" for the overflow bucket.
+         */
+        private String percentile(final double percentile) {
+            final long target = (long) Math.ceil(count.sum() * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= target) {
+                    return "<" + BUCKET_BOUNDS_MILLIS[i] + "ms";
+                }
+            }
+            return ">" + BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1] + "ms";
+        }
+
+        @Override
+        public String toString() {
+            final long executions = count.sum();
+            final double meanMillis = executions == 0 ? 0 : totalNanos.sum() / (double) executions / 1_000_000;
+            return String.format("count=%d rows=%d mean=%.2fms max=%dms p50%s p95%s p99%s",
+                    executions, rows.sum(), meanMillis, TimeUnit.NANOSECONDS.toMillis(maxNanos.get()),
+                    percentile(0.5), percentile(0.95), percentile(0.99));
+        }
+    }
+}
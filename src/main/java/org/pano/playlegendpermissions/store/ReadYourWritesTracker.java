@@ -0,0 +1,64 @@
+package org.pano.playlegendpermissions.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers recently written keys for a configurable window.
+ * Reads of a key inside the window are routed to the primary, so changes are visible
+ * to the writer even if the replica has not caught up yet.
+ * Keys are qualified with their table, see {@link #key(String, Object)}, so equal values of different tables never collide.
+ */
+public class ReadYourWritesTracker {
+    private static final int MAX_SIZE = 100000;
+    private final Cache<Object, Boolean> recentWrites;
+
+    /**
+     * Creates a new ReadYourWritesTracker.
+     *
+     * @param windowMillis How long a written key is read from the primary.
+     */
+    public ReadYourWritesTracker(final long windowMillis) {
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(windowMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_SIZE)
+                .build();
+    }
+
+    /**
+     * Builds the routing key of a value stored in the given table. Strings are compared ignoring case,
+     * like the lookups of the database.
+     *
+     * @param table The unprefixed table name.
+     * @param value The written or looked up value, e.g. a player uuid, group id or name.
+     * @return The routing key, or null if the value is null.
+     */
+    public static Object key(final String table, final Object value) {
+        if (value == null) {
+            return null;
+        }
+        return table + ":" + (value instanceof String text ? text.toLowerCase(Locale.ROOT) : value);
+    }
+
+    /**
+     * Records a write of the given key.
+     *
+     * @param key The routing key, see {@link #key(String, Object)}.
+     */
+    public void markWritten(final Object key) {
+        if (key != null) {
+            recentWrites.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @param key The routing key.
+     * @return true if the key was written within the window.
+     */
+    public boolean isRecentlyWritten(final Object key) {
+        return key != null && recentWrites.getIfPresent(key) != null;
+    }
+}
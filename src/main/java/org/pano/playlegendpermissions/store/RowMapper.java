@@ -0,0 +1,21 @@
+package org.pano.playlegendpermissions.store;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ *
+ * @param <T> The type of the mapped object.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Maps the row the ResultSet currently points to. Implementations must not move the cursor.
+     *
+     * @param resultSet The ResultSet positioned on the row to map.
+     * @return The mapped object.
+     * @throws SQLException If a database access error occurs or mapping fails.
+     */
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,198 @@
+package org.pano.playlegendpermissions.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies versioned schema migrations in order.
+ * Migrations are SQL resources named {@code V<version>__<description>.sql} in the migration location of the
+ * active {@link SqlDialect}. Every applied version is recorded in the {@code schema_version} table, so each
+ * migration runs exactly once per database. New migrations are added to {@link #MIGRATIONS} and must never
+ * be changed once released.
+ * <p>
+ * Migrations are only atomic on dialects with transactional DDL (SQLite). MySQL commits implicitly around every
+ * DDL statement, so a migration failing halfway keeps its earlier statements although its version is not recorded.
+ * Every script must therefore be idempotent, so the whole migration can simply run again on the next start:
+ * tables are created with {@code if not exists}, data is copied with {@code insert ignore}, and {@code create index}
+ * statements are skipped by the migrator if the index already exists.
+ * <p>
+ * Servers sharing a database serialize their migrations through a dialect lock. The applied version is read only
+ * once the lock is held, so a server that waited for another one skips the migrations that server already applied.
+ */
+public class SchemaMigrator {
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "baseline"),
+            new Migration(2, "hot_path_indexes"),
+            new Migration(3, "player_current_group"),
+            new Migration(4, "player2group_archive")
+    );
+    private static final int MIGRATION_LOCK_TIMEOUT_SECONDS = 60;
+    private static final Pattern CREATE_INDEX = Pattern.compile("^create\\s+(?:unique\\s+)?index\\s+(?!if\\s)(\\S+)\\s+on\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private final SqlDialect dialect;
+    private final String tablePrefix;
+    private final Logger logger;
+
+    /**
+     * Creates a new SchemaMigrator.
+     *
+     * @param dialect     The dialect whose migration scripts are applied.
+     * @param tablePrefix The configured table prefix.
+     * @param logger      Logger for reporting applied migrations.
+     */
+    public SchemaMigrator(final SqlDialect dialect, final String tablePrefix, final Logger logger) {
+        this.dialect = dialect;
+        this.tablePrefix = tablePrefix;
+        this.logger = logger;
+    }
+
+    /**
+     * Applies all pending migrations in version order.
+     *
+     * @return The number of applied migrations.
+     * @throws SQLException If a migration fails or another server kept the migration lock for too long.
+     *                      Already applied migrations stay recorded.
+     */
+    public int migrate() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            final String lockName = getLockName(conn);
+            if (!dialect.acquireMigrationLock(conn, lockName, MIGRATION_LOCK_TIMEOUT_SECONDS)) {
+                throw new SQLException("Timed out after " + MIGRATION_LOCK_TIMEOUT_SECONDS + "s waiting for another server to finish the schema migration");
+            }
+            try {
+                return applyPending(conn);
+            } finally {
+                dialect.releaseMigrationLock(conn, lockName);
+            }
+        }
+    }
+
+    private int applyPending(final Connection conn) throws SQLException {
+        createVersionTable(conn);
+        final int currentVersion = getCurrentVersion(conn);
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= currentVersion) {
+                continue;
+            }
+            apply(conn, migration);
+            applied++;
+            logger.info("Applied schema migration V" + migration.version + " (" + migration.description + ")");
+        }
+        return applied;
+    }
+
+    private void createVersionTable(final Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("create table if not exists " + getVersionTable() + " (" +
+                    "version int not null primary key, " +
+                    "description varchar(255) not null, " +
+                    "installed_on timestamp default CURRENT_TIMESTAMP null)");
+        }
+    }
+
+    private int getCurrentVersion(final Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT MAX(version) FROM " + getVersionTable())) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private void apply(final Connection conn, final Migration migration) throws SQLException {
+        final boolean transactional = dialect.supportsTransactionalDdl();
+        final boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(!transactional);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : splitStatements(loadScript(migration))) {
+                if (!isExistingIndex(conn, sql)) {
+                    stmt.execute(sql);
+                }
+            }
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO " + getVersionTable() + " (version, description) VALUES (?, ?)")) {
+                insert.setInt(1, migration.version);
+                insert.setString(2, migration.description);
+                insert.executeUpdate();
+            }
+            if (transactional) {
+                conn.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (transactional) {
+                conn.rollback();
+            }
+            throw new SQLException("Schema migration V" + migration.version + " failed", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Checks whether the statement creates an index that already exists, e.g. because a previous non-atomic
+     * run of the migration failed after creating it.
+     */
+    private boolean isExistingIndex(final Connection conn, final String sql) throws SQLException {
+        final Matcher matcher = CREATE_INDEX.matcher(sql);
+        if (!matcher.find()) {
+            return false;
+        }
+        final String indexName = matcher.group(1);
+        try (ResultSet indexes = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, matcher.group(2), false, true)) {
+            while (indexes.next()) {
+                if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String loadScript(final Migration migration) {
+        final String resource = dialect.getMigrationLocation() + "/V" + migration.version + "__" + migration.description + ".sql";
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration script " + resource + " not found");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("{PREFIX}", tablePrefix);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read migration script " + resource, e);
+        }
+    }
+
+    private List<String> splitStatements(final String sql) {
+        return Arrays.stream(sql.split(";\\s*"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Lock names are global to the database server, so the name includes the schema and the table prefix.
+     */
+    private String getLockName(final Connection conn) throws SQLException {
+        return conn.getCatalog() + "." + tablePrefix + "schema_migration";
+    }
+
+    private String getVersionTable() {
+        return tablePrefix + "schema_version";
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+
+        private Migration(final int version, final String description) {
+            this.version = version;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.pano.playlegendpermissions.store;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Describes the differences between the supported database backends.
+ * The dialect configures the connection pool, provides the schema migrations and renders the statements
+ * that cannot be expressed in portable SQL.
+ */
+public interface SqlDialect {
+
+    /**
+     * @return The name of the dialect as used in the configuration.
+     */
+    String getName();
+
+    /**
+     * Configures the JDBC url, credentials and driver properties of the connection pool.
+     *
+     * @param config The pool configuration to fill.
+     * @param plugin The JavaPlugin instance for accessing configuration and the data folder.
+     */
+    void configure(HikariConfig config, JavaPlugin plugin);
+
+    /**
+     * @return The classpath folder containing the versioned migration scripts for this dialect.
+     */
+    String getMigrationLocation();
+
+    /**
+     * Renders the clause appended to an INSERT statement to turn it into an upsert.
+     * Null values must keep the stored value.
+     *
+     * @param keyColumn     The primary key column.
+     * @param updateColumns The columns updated if the row already exists.
+     * @return The upsert clause, starting with a space.
+     */
+    String getUpsertClause(String keyColumn, List<String> updateColumns);
+
+    /**
+     * @return true if the driver returns the generated keys of every row of a batch insert.
+     */
+    boolean supportsBatchGeneratedKeys();
+
+    /**
+     * @return true if the isolation level of a transaction can be chosen.
+     */
+    boolean supportsTransactionIsolation();
+
+    /**
+     * @return true if schema changes can be rolled back, so a failed migration leaves no partial changes behind.
+     */
+    boolean supportsTransactionalDdl();
+
+    /**
+     * Renders the clause appended to a SELECT statement to lock the selected rows until the transaction ends.
+     *
+     * @return The lock clause starting with a space, or an empty string if rows cannot be locked individually.
+     */
+    String getRowLockClause();
+
+    /**
+     * Acquires a lock that keeps other servers sharing the database from migrating the schema at the same time.
+     * The lock is held by the given connection until {@link #releaseMigrationLock(Connection, String)} is called
+     * on it, or the connection is closed by the server.
+     *
+     * @param conn           The connection the migrations run on.
+     * @param name           The name of the lock.
+     * @param timeoutSeconds The maximum time to wait for another server to finish its migrations.
+     * @return true if the lock was acquired, false if the timeout elapsed.
+     * @throws SQLException If the lock could not be requested.
+     */
+    boolean acquireMigrationLock(Connection conn, String name, int timeoutSeconds) throws SQLException;
+
+    /**
+     * Releases the lock acquired with {@link #acquireMigrationLock(Connection, String, int)}.
+     *
+     * @param conn The connection holding the lock.
+     * @param name The name of the lock.
+     * @throws SQLException If the lock could not be released.
+     */
+    void releaseMigrationLock(Connection conn, String name) throws SQLException;
+
+    /**
+     * Resolves a dialect by its configured name.
+     *
+     * @param name The name from the configuration, null selects MySQL.
+     * @return The dialect.
+     * @throws IllegalArgumentException If the name is unknown.
+     */
+    static SqlDialect fromName(final String name) {
+        if (name == null) {
+            return new MySqlDialect();
+        }
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case MySqlDialect.NAME, "mariadb" -> new MySqlDialect();
+            case SqliteDialect.NAME -> new SqliteDialect();
+            default -> throw new IllegalArgumentException("Unknown database type: " + name);
+        };
+    }
+}
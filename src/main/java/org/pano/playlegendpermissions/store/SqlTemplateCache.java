@@ -0,0 +1,82 @@
+package org.pano.playlegendpermissions.store;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache for rendered SQL statements.
+ * Every statement generated from entity metadata is rendered once per entity class, operation and search column,
+ * afterwards only the parameters have to be bound.
+ */
+public final class SqlTemplateCache {
+    private static final Map<TemplateKey, String> TEMPLATES = new ConcurrentHashMap<>();
+
+    /**
+     * The kind of statement a template was rendered for.
+     */
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        UPSERT,
+        SELECT_BY_ID,
+        SELECT_ALL,
+        SELECT_BY_FIELD,
+        LOCK_BY_ID,
+        DELETE_BY_ID
+    }
+
+    private SqlTemplateCache() {
+    }
+
+    /**
+     * Returns the cached SQL for the given key, rendering it on first use.
+     *
+     * @param entityClass  The entity class the statement belongs to.
+     * @param operation    The operation of the statement.
+     * @param searchColumn The column the statement filters on, or null if not applicable.
+     * @param renderer     Renders the statement if it is not cached yet.
+     * @return The rendered SQL.
+     */
+    public static String get(final Class<?> entityClass, final Operation operation, final String searchColumn, final Supplier<String> renderer) {
+        return TEMPLATES.computeIfAbsent(new TemplateKey(entityClass, operation, searchColumn), key -> renderer.get());
+    }
+
+    /**
+     * Drops all cached statements. Must be called whenever the table prefix changes.
+     */
+    public static void clear() {
+        TEMPLATES.clear();
+    }
+
+    private static final class TemplateKey {
+        private final Class<?> entityClass;
+        private final Operation operation;
+        private final String searchColumn;
+        private final int hash;
+
+        private TemplateKey(final Class<?> entityClass, final Operation operation, final String searchColumn) {
+            this.entityClass = entityClass;
+            this.operation = operation;
+            this.searchColumn = searchColumn;
+            this.hash = Objects.hash(entityClass, operation, searchColumn);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TemplateKey other)) {
+                return false;
+            }
+            return entityClass == other.entityClass && operation == other.operation && Objects.equals(searchColumn, other.searchColumn);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.pano.playlegendpermissions.store;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Dialect for an embedded, file backed SQLite database in the plugin folder.
+ * The SQLite driver is shipped with Spigot, so no network database is required.
+ * SQLite allows only one writer at a time, the pool therefore always uses a single connection.
+ * Timestamps are stored as INTEGER epoch milliseconds, the storage class the driver binds {@link java.sql.Timestamp}
+ * parameters with. The column defaults of the migrations use the same format, so stored and bound values compare correctly.
+ */
+public class SqliteDialect implements SqlDialect {
+    static final String NAME = "sqlite";
+    private static final String DEFAULT_FILE = "permissions.db";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void configure(final HikariConfig config, final JavaPlugin plugin) {
+        final File file = new File(plugin.getDataFolder(), plugin.getConfig().getString("database.file", DEFAULT_FILE));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        config.addDataSourceProperty("foreign_keys", "true");
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("busy_timeout", "5000");
+        config.addDataSourceProperty("date_class", "INTEGER");
+        config.addDataSourceProperty("date_precision", "MILLISECONDS");
+    }
+
+    @Override
+    public String getMigrationLocation() {
+        return "db/migration/sqlite";
+    }
+
+    @Override
+    public String getUpsertClause(final String keyColumn, final List<String> updateColumns) {
+        return " ON CONFLICT (" + keyColumn + ") DO UPDATE SET " + updateColumns.stream()
+                .map(column -> column + " = COALESCE(excluded." + column + ", " + column + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public boolean supportsBatchGeneratedKeys() {
+        return false;
+    }
+
+    /**
+     * SQLite transactions are always serializable.
+     */
+    @Override
+    public boolean supportsTransactionIsolation() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return true;
+    }
+
+    /**
+     * SQLite has no row locks, writes are already serialized by the single pooled connection.
+     */
+    @Override
+    public String getRowLockClause() {
+        return "";
+    }
+
+    /**
+     * The database file belongs to a single server and migrations run in a transaction, so no lock is needed.
+     */
+    @Override
+    public boolean acquireMigrationLock(final Connection conn, final String name, final int timeoutSeconds) {
+        return true;
+    }
+
+    @Override
+    public void releaseMigrationLock(final Connection conn, final String name) {
+    }
+}
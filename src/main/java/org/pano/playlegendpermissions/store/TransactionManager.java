@@ -0,0 +1,134 @@
+package org.pano.playlegendpermissions.store;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Locale;
+
+/**
+ * Unit of work spanning several repository calls.
+ * While a transaction is running on a thread, every connection requested through {@link DatabaseConfig} on that
+ * thread is the transaction's connection, so all statements of the unit of work run on one pooled connection and
+ * are committed or rolled back together. The shared connection ignores {@code close}, {@code commit},
+ * {@code rollback} and {@code setAutoCommit} of the repositories; only the transaction completes it.
+ * Nested transactions join the running one.
+ */
+public class TransactionManager {
+    private static final ThreadLocal<Connection> CURRENT = new ThreadLocal<>();
+    private final int isolationLevel;
+
+    /**
+     * A unit of work run inside a transaction.
+     *
+     * @param <V> The result type.
+     */
+    @FunctionalInterface
+    public interface Work<V> {
+        V execute() throws Exception;
+    }
+
+    /**
+     * Creates a new TransactionManager.
+     *
+     * @param isolationLevel The isolation level of the transactions, one of the {@link Connection} constants.
+     */
+    public TransactionManager(final int isolationLevel) {
+        this.isolationLevel = isolationLevel;
+    }
+
+    /**
+     * Runs the work in a transaction with the configured isolation level. The transaction is committed if the
+     * work completes and rolled back if it throws.
+     *
+     * @param work The unit of work.
+     * @param <V>  The result type.
+     * @return The result of the work.
+     * @throws Exception The exception thrown by the work or by the commit.
+     */
+    public <V> V inTransaction(final Work<V> work) throws Exception {
+        if (CURRENT.get() != null) {
+            return work.execute();
+        }
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            final boolean autoCommit = conn.getAutoCommit();
+            final int previousIsolation = conn.getTransactionIsolation();
+            if (DatabaseConfig.getDialect().supportsTransactionIsolation()) {
+                conn.setTransactionIsolation(isolationLevel);
+            }
+            conn.setAutoCommit(false);
+            CURRENT.set(shared(conn));
+            try {
+                final V result = work.execute();
+                conn.commit();
+                return result;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                CURRENT.remove();
+                conn.setAutoCommit(autoCommit);
+                if (DatabaseConfig.getDialect().supportsTransactionIsolation()) {
+                    conn.setTransactionIsolation(previousIsolation);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if a transaction is running on the current thread.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return The connection of the transaction running on the current thread, or null if there is none.
+     */
+    static Connection currentConnection() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Parses an isolation level from the configuration.
+     *
+     * @param name The name of the level, e.g. {@code READ_COMMITTED}, null selects READ_COMMITTED.
+     * @return The {@link Connection} constant of the level.
+     * @throws IllegalArgumentException If the name is unknown.
+     */
+    public static int parseIsolationLevel(final String name) {
+        if (name == null) {
+            return Connection.TRANSACTION_READ_COMMITTED;
+        }
+        return switch (name.trim().toUpperCase(Locale.ROOT)) {
+            case "READ_UNCOMMITTED" -> Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "READ_COMMITTED" -> Connection.TRANSACTION_READ_COMMITTED;
+            case "REPEATABLE_READ" -> Connection.TRANSACTION_REPEATABLE_READ;
+            case "SERIALIZABLE" -> Connection.TRANSACTION_SERIALIZABLE;
+            default -> throw new IllegalArgumentException("Unknown transaction isolation: " + name);
+        };
+    }
+
+    private static Connection shared(final Connection conn) {
+        final InvocationHandler handler = (proxy, method, args) -> {
+            if (isTransactionControl(method)) {
+                return null;
+            }
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static boolean isTransactionControl(final Method method) {
+        return switch (method.getName()) {
+            case "close", "commit", "setAutoCommit" -> true;
+            case "rollback" -> method.getParameterCount() == 0;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,203 @@
+package org.pano.playlegendpermissions.store;
+
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind buffer in front of a {@link DatabaseStoreInterface}.
+ * Writes are collected per key, so repeated writes of the same entity are coalesced into a single row,
+ * and saved with {@link DatabaseStoreInterface#saveAll(java.util.Collection)} on a background thread once
+ * {@code batchSize} entities are pending or every {@code flushIntervalMillis}. While the database is unavailable
+ * the entities stay queued and are retried with the next flush, unless a newer write of the same key replaced them.
+ * If a batch is rejected by the database, its entities are retried one by one, so a single bad entity cannot block
+ * the queue: entities that fail on their own are dropped and logged.
+ * The queue holds at most {@code maxPending} keys; once it is full, writes of new keys are rejected right away
+ * instead of buffering without limit while the database is unavailable.
+ *
+ * @param <T>  The type of the buffered entity.
+ * @param <ID> The type of the key writes are coalesced by.
+ */
+public class WriteBehindQueue<T, ID> {
+    private static final String THREAD_NAME = "pper-write-behind";
+    private final DatabaseStoreInterface<T, ID> repository;
+    private final Function<T, ID> keyFunction;
+    private final int batchSize;
+    private final int maxPending;
+    private final Logger logger;
+    private final Map<ID, T> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean unavailableReported = new AtomicBoolean();
+    private final AtomicBoolean fullReported = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new WriteBehindQueue and starts its periodic flush.
+     *
+     * @param repository          The repository the entities are saved with.
+     * @param keyFunction         Extracts the key writes are coalesced by.
+     * @param batchSize           The number of pending entities that triggers a flush, also the maximum batch size.
+     * @param flushIntervalMillis The time between periodic flushes.
+     * @param maxPending          The maximum number of pending keys.
+     * @param logger              Logger for reporting failed flushes.
+     */
+    public WriteBehindQueue(final DatabaseStoreInterface<T, ID> repository, final Function<T, ID> keyFunction,
+                            final int batchSize, final long flushIntervalMillis, final int maxPending, final Logger logger) {
+        this.repository = repository;
+        this.keyFunction = keyFunction;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = Math.max(1, maxPending);
+        this.logger = logger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = Math.max(1, flushIntervalMillis);
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues an entity for saving, replacing a pending write of the same key.
+     *
+     * @param entity The entity to save.
+     * @throws RejectedExecutionException If the queue is full and no write of the same key is pending.
+     */
+    public void enqueue(final T entity) {
+        final ID key = keyFunction.apply(entity);
+        if (pending.size() >= maxPending && pending.computeIfPresent(key, (existingKey, existing) -> entity) == null) {
+            if (fullReported.compareAndSet(false, true)) {
+                logger.warning("Write-behind queue is full (" + maxPending + " writes), rejecting new writes until it drains");
+            }
+            throw new RejectedExecutionException("Write-behind queue is full");
+        }
+        fullReported.set(false);
+        pending.put(key, entity);
+        if (pending.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Returns the entity still waiting to be written for the given key, so reads can see their own writes.
+     *
+     * @param key The key of the entity.
+     * @return The pending entity, or null if nothing is pending for the key.
+     */
+    public T getPending(final ID key) {
+        return pending.get(key);
+    }
+
+    /**
+     * @return The number of entities waiting to be written.
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Writes the pending entity of the given key immediately, e.g. before inserting a row that references it.
+     *
+     * @param key The key of the entity.
+     * @throws Exception If the entity could not be saved, it stays queued.
+     */
+    public synchronized void flush(final ID key) throws Exception {
+        final T entity = pending.get(key);
+        if (entity == null) {
+            return;
+        }
+        repository.save(entity);
+        pending.remove(key, entity);
+    }
+
+    /**
+     * Writes all pending entities in batches of at most {@code batchSize}. Entities of a failed batch are
+     * retried one by one, entities that fail on their own are dropped.
+     *
+     * @throws DatabaseUnavailableException If the database is unavailable, the unwritten entities stay queued.
+     */
+    public synchronized void flush() throws DatabaseUnavailableException {
+        while (!pending.isEmpty()) {
+            final List<Map.Entry<ID, T>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            for (Map.Entry<ID, T> entry : pending.entrySet()) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                if (batch.size() == batchSize) {
+                    break;
+                }
+            }
+            try {
+                repository.saveAll(batch.stream().map(Map.Entry::getValue).toList());
+                batch.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+            } catch (DatabaseUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.warning("Write-behind batch of " + batch.size() + " failed (" + e.getMessage() + "), retrying its writes one by one");
+                saveIndividually(batch);
+            }
+        }
+    }
+
+    private void saveIndividually(final List<Map.Entry<ID, T>> batch) throws DatabaseUnavailableException {
+        for (Map.Entry<ID, T> entry : batch) {
+            try {
+                repository.save(entry.getValue());
+            } catch (DatabaseUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.severe("Dropping queued write of " + entry.getKey() + ": " + e.getMessage());
+            }
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes everything still pending.
+     *
+     * @param timeout The maximum time to wait for a running flush.
+     * @param unit    The unit of the timeout.
+     */
+    public void shutdown(final long timeout, final TimeUnit unit) {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        if (!pending.isEmpty()) {
+            logger.warning(pending.size() + " queued writes could not be saved");
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+            if (unavailableReported.compareAndSet(true, false)) {
+                logger.info("Write-behind queue drained after the database became available again");
+            }
+        } catch (DatabaseUnavailableException e) {
+            if (unavailableReported.compareAndSet(false, true)) {
+                logger.warning("Database unavailable, " + pending.size() + " writes stay queued until it recovers");
+            }
+        } catch (Exception e) {
+            logger.warning("Write-behind flush failed, " + pending.size() + " writes stay queued: " + e.getMessage());
+        }
+    }
+}
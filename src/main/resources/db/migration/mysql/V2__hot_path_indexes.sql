@@ -0,0 +1,7 @@
+create index {PREFIX}player2group_player_create_date_idx on {PREFIX}player2group (player_uuid, create_date);
+
+create index {PREFIX}player2group_expire_datetime_idx on {PREFIX}player2group (expire_datetime);
+
+create index {PREFIX}player_display_name_idx on {PREFIX}player (display_name);
+
+create index {PREFIX}user_group_name_idx on {PREFIX}user_group (name);
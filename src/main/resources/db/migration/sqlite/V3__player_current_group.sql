@@ -0,0 +1,20 @@
+create table if not exists {PREFIX}player_current_group
+(
+    player_uuid   varchar(255) not null primary key,
+    assignment_id int          not null,
+    constraint player_current_group_player_uuid_fk
+    foreign key (player_uuid) references {PREFIX}player (uuid),
+    constraint player_current_group_assignment_id_fk
+    foreign key (assignment_id) references {PREFIX}player2group (id)
+    );
+
+insert into {PREFIX}player_current_group (player_uuid, assignment_id)
+select assignment.player_uuid, assignment.id
+from {PREFIX}player2group assignment
+where (assignment.expire_datetime is null or assignment.expire_datetime > (cast((julianday('now') - 2440587.5) * 86400000 as integer)))
+  and not exists (select 1
+                  from {PREFIX}player2group newer
+                  where newer.player_uuid = assignment.player_uuid
+                    and (newer.expire_datetime is null or newer.expire_datetime > (cast((julianday('now') - 2440587.5) * 86400000 as integer)))
+                    and (newer.create_date > assignment.create_date
+                      or (newer.create_date = assignment.create_date and newer.id > assignment.id)));
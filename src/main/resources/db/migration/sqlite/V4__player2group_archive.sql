@@ -0,0 +1,13 @@
+create table if not exists {PREFIX}player2group_archive
+(
+    id              integer                             not null
+    primary key,
+    player_uuid     varchar(255)                        not null,
+    group_id        int                                 not null,
+    expire_datetime datetime                            null,
+    create_date     timestamp                           null,
+    last_group_id   int                                 null,
+    archived_at     timestamp default (cast((julianday('now') - 2440587.5) * 86400000 as integer)) null
+    );
+
+create index if not exists {PREFIX}player2group_archive_player_idx on {PREFIX}player2group_archive (player_uuid);
@@ -0,0 +1,119 @@
+package org.pano.playlegendpermissions.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pano.playlegendpermissions.model.Player;
+import org.pano.playlegendpermissions.model.Player2Group;
+import org.pano.playlegendpermissions.model.PlayerCurrentGroup;
+import org.pano.playlegendpermissions.model.UserGroup;
+import org.pano.playlegendpermissions.store.DatabaseConfig;
+import org.pano.playlegendpermissions.store.SqliteTestDatabase;
+import org.pano.playlegendpermissions.store.TransactionManager;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Player2GroupRepositoryTest {
+    private static final long HOUR = 3_600_000L;
+
+    @TempDir
+    File folder;
+
+    private final Player2GroupRepository underTest = new Player2GroupRepository();
+    private final PlayerRepository playerRepository = new PlayerRepository();
+    private final UserGroupRepository userGroupRepository = new UserGroupRepository();
+    private final PlayerCurrentGroupRepository playerCurrentGroupRepository = new PlayerCurrentGroupRepository();
+    private final TransactionManager transactionManager = new TransactionManager(TransactionManager.parseIsolationLevel(null));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SqliteTestDatabase.startMigrated(folder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqliteTestDatabase.stop();
+    }
+
+    @Test
+    void archiveOutdated_ShouldMoveExpiredAndSupersededAssignmentsOnly() throws Exception {
+        //given
+        final long now = System.currentTimeMillis();
+        final UserGroup group = userGroupRepository.save(new UserGroup("Admin", "A"));
+        final Player player = playerRepository.save(new Player("uuid1", "first"));
+        final Player otherPlayer = playerRepository.save(new Player("uuid2", "second"));
+        final Player2Group expired = underTest.save(new Player2Group(0, player, group, new Timestamp(now - HOUR), new Timestamp(now - 3 * HOUR), 0));
+        final Player2Group superseded = underTest.save(new Player2Group(0, player, group, null, new Timestamp(now - 2 * HOUR), 0));
+        final Player2Group current = underTest.save(new Player2Group(0, player, group, null, new Timestamp(now - HOUR), 0));
+        final Player2Group active = underTest.save(new Player2Group(0, otherPlayer, group, new Timestamp(now + HOUR), new Timestamp(now - HOUR), 0));
+        playerCurrentGroupRepository.save(new PlayerCurrentGroup(player.getUuid(), current.getId()));
+
+        //when
+        final int moved = transactionManager.inTransaction(() -> underTest.archiveOutdated(new Timestamp(now), 10));
+
+        //then
+        assertEquals(2, moved);
+        assertEquals(List.of(expired.getId(), superseded.getId()), archivedIds());
+        assertEquals(List.of(current.getId()), underTest.findAllByPlayer(player).stream().map(Player2Group::getId).toList());
+        assertEquals(List.of(active.getId()), underTest.findAllByPlayer(otherPlayer).stream().map(Player2Group::getId).toList());
+    }
+
+    @Test
+    void archiveOutdated_WhenBatchIsFull_ShouldLeaveTheRestForTheNextBatch() throws Exception {
+        //given
+        final long now = System.currentTimeMillis();
+        final UserGroup group = userGroupRepository.save(new UserGroup("Admin", "A"));
+        final Player player = playerRepository.save(new Player("uuid1", "first"));
+        final Player2Group first = underTest.save(new Player2Group(0, player, group, new Timestamp(now - 2 * HOUR), new Timestamp(now - 3 * HOUR), 0));
+        final Player2Group second = underTest.save(new Player2Group(0, player, group, new Timestamp(now - HOUR), new Timestamp(now - 2 * HOUR), 0));
+
+        //when
+        final int firstBatch = transactionManager.inTransaction(() -> underTest.archiveOutdated(new Timestamp(now), 1));
+        final int secondBatch = transactionManager.inTransaction(() -> underTest.archiveOutdated(new Timestamp(now), 1));
+        final int thirdBatch = transactionManager.inTransaction(() -> underTest.archiveOutdated(new Timestamp(now), 1));
+
+        //then
+        assertEquals(1, firstBatch);
+        assertEquals(1, secondBatch);
+        assertEquals(0, thirdBatch);
+        assertEquals(List.of(first.getId(), second.getId()), archivedIds());
+        assertTrue(underTest.findAllByPlayer(player).isEmpty());
+    }
+
+    @Test
+    void archiveOutdated_WhenNoTransactionIsRunning_ShouldThrow() throws Exception {
+        //given
+        final long now = System.currentTimeMillis();
+        final UserGroup group = userGroupRepository.save(new UserGroup("Admin", "A"));
+        final Player player = playerRepository.save(new Player("uuid1", "first"));
+        final Player2Group expired = underTest.save(new Player2Group(0, player, group, new Timestamp(now - HOUR), new Timestamp(now - 2 * HOUR), 0));
+
+        //when
+        assertThrows(IllegalStateException.class, () -> underTest.archiveOutdated(new Timestamp(now), 10));
+
+        //then
+        assertTrue(archivedIds().isEmpty());
+        assertEquals(List.of(expired.getId()), underTest.findAllByPlayer(player).stream().map(Player2Group::getId).toList());
+    }
+
+    private List<Long> archivedIds() throws Exception {
+        final List<Long> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT id FROM " + SqliteTestDatabase.TABLE_PREFIX + "player2group_archive ORDER BY id")) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+}
@@ -4,17 +4,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.model.Player2Group;
 import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.repository.Player2GroupRepository;
+import org.pano.playlegendpermissions.repository.PlayerCurrentGroupRepository;
 import org.pano.playlegendpermissions.repository.PlayerRepository;
 import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
+import org.pano.playlegendpermissions.store.TransactionManager;
+import org.pano.playlegendpermissions.store.WriteBehindQueue;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -27,16 +36,24 @@ class PlayerServiceTest {
     @Mock
     private Player2GroupRepository player2GroupRepository;
     @Mock
+    private PlayerCurrentGroupRepository playerCurrentGroupRepository;
+    @Mock
     private PlayerCacheManager playerCacheManager;
     @Mock
+    private WriteBehindQueue<Player, String> playerWriteQueue;
+    @Mock
+    private TransactionManager transactionManager;
+    @Mock
     private org.bukkit.entity.Player bukkitPlayer;
 
     private PlayerService underTest;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        underTest = new PlayerService(playerRepository, player2GroupRepository, playerCacheManager);
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation -> invocation.<TransactionManager.Work<?>>getArgument(0).execute());
+        when(playerCacheManager.get(any(), any())).thenAnswer(invocation -> invocation.<Function<String, CompletableFuture<PlayerDAO>>>getArgument(1).apply(invocation.getArgument(0)));
+        underTest = new PlayerService(playerRepository, player2GroupRepository, playerCurrentGroupRepository, playerCacheManager, playerWriteQueue, transactionManager, Runnable::run);
     }
 
     @Test
@@ -53,6 +70,50 @@ class PlayerServiceTest {
         assertEquals("uuid", result.getUuid());
     }
 
+    @Test
+    void getPlayerWhenPlayerIsQueuedForSaving() throws Exception {
+        // Arrange
+        Player mockPlayer = new Player("uuid", "displayName");
+        when(playerWriteQueue.getPending("uuid")).thenReturn(mockPlayer);
+
+        // Act
+        Player result = underTest.getPlayer(new Player("uuid", ""));
+
+        // Assert
+        assertEquals(mockPlayer, result);
+        verify(playerRepository, never()).findById(any());
+    }
+
+    @Test
+    void getPlayerWhenDatabaseUnavailableAndPlayerCached() throws Exception {
+        // Arrange
+        final var playerDAO = createMockPlayerDao();
+        when(playerRepository.findById("uuid")).thenThrow(new DatabaseUnavailableException());
+        when(playerCacheManager.getById("uuid")).thenReturn(playerDAO);
+
+        // Act
+        Player result = underTest.getPlayer(new Player("uuid", ""));
+
+        // Assert
+        assertEquals("uuid", result.getUuid());
+        assertEquals(playerDAO.getName(), result.getDisplayName());
+    }
+
+    @Test
+    void getPlayerByNameWhenDatabaseUnavailableAndPlayerCached() throws Exception {
+        // Arrange
+        final var playerDAO = createMockPlayerDao();
+        when(playerRepository.findFirstByName("displayName")).thenThrow(new DatabaseUnavailableException());
+        when(playerCacheManager.getByName("displayName")).thenReturn(playerDAO);
+
+        // Act
+        Player result = underTest.getPlayer(new Player("", "displayName"));
+
+        // Assert
+        assertEquals(playerDAO.getUuid(), result.getUuid());
+        assertEquals(playerDAO.getName(), result.getDisplayName());
+    }
+
     @Test
     void getPlayerWhenDisplayNameProvided() throws Exception {
         // Arrange
@@ -82,14 +143,14 @@ class PlayerServiceTest {
     }
 
     @Test
-    void getPlayersActiveGroup_WhenPlayerInCache_ShouldReturnDao() throws Exception {
+    void getPlayersActiveGroupAsync_WhenPlayerInCache_ShouldReturnDao() throws Exception {
         //given
         final var playerDAO = createMockPlayerDao();
         final var player = createMockedPlayer();
         when(playerCacheManager.getById(player.getUuid())).thenReturn(playerDAO);
 
         //when
-        final var result = underTest.getPlayersActiveGroup(player);
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
 
         //then
         assertNotNull(result);
@@ -98,7 +159,43 @@ class PlayerServiceTest {
     }
 
     @Test
-    void getPlayersActiveGroup_WhenPlayerNotInCache_ShouldAddToCache() throws Exception {
+    void getPlayersActiveGroupAsync_WhenPlayerRestoredFromSnapshot_ShouldRevalidate() throws Exception {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        final var player = createMockedPlayer();
+        final var currentGroup = createPlayer2Groups().get(1);
+        when(playerCacheManager.getById(player.getUuid())).thenReturn(playerDAO);
+        when(playerCacheManager.takeStale(player.getUuid())).thenReturn(true);
+        when(player2GroupRepository.findCurrentByPlayer(player)).thenReturn(currentGroup);
+
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
+
+        //then
+        assertEquals(playerDAO, result);
+        verify(playerCacheManager, times(1)).addToCache(argThat(dao -> dao.getPlayer2groupId() == currentGroup.getId()));
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenRevalidationHitsOutage_ShouldKeepSnapshotEntry() throws Exception {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        final var player = createMockedPlayer();
+        when(playerCacheManager.getById(player.getUuid())).thenReturn(playerDAO);
+        when(playerCacheManager.takeStale(player.getUuid())).thenReturn(true);
+        when(player2GroupRepository.findCurrentByPlayer(player)).thenThrow(new DatabaseUnavailableException());
+
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
+
+        //then
+        assertEquals(playerDAO, result);
+        verify(playerCacheManager, times(1)).markStale(player.getUuid());
+        verify(playerCacheManager, never()).removeById(any());
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenPlayerNotInCache_ShouldAddToCache() throws Exception {
         //given
         final var playerDAO = createMockPlayerDao();
         final var player = createMockedPlayer();
@@ -109,21 +206,172 @@ class PlayerServiceTest {
 
 
         //when
-        final var result = underTest.getPlayersActiveGroup(player);
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
 
         //then
         assertNotNull(result);
         assertEquals(playerDAO.getUuid(), result.getUuid());
         assertEquals(playerDAO.getCurrentGroupId(), result.getCurrentGroupId());
-        verify(playerCacheManager, times(1)).addToCache(any());
+        verify(playerCacheManager, times(1)).get(eq(player.getUuid()), any());
+
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenLoadAlreadyRunning_ShouldShareIt() throws Exception {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        final var player = createMockedPlayer();
+        when(playerCacheManager.get(eq(player.getUuid()), any())).thenReturn(CompletableFuture.completedFuture(playerDAO));
+
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
+
+        //then
+        assertEquals(playerDAO, result);
+        verify(player2GroupRepository, never()).findCurrentByPlayer(any());
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenPlayerNotInCache_ShouldLoadOnExecutor() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        final var currentGroup = createPlayer2Groups().get(1);
+        when(player2GroupRepository.findCurrentByPlayer(player)).thenReturn(currentGroup);
 
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player);
+
+        //then
+        assertEquals(currentGroup.getUserGroup().getId(), result.get().getCurrentGroupId());
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenCurrentGroupIsActive_ShouldNotReadHistory() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        final var currentGroup = createPlayer2Groups().get(1);
+        when(player2GroupRepository.findCurrentByPlayer(player)).thenReturn(currentGroup);
+
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
+
+        //then
+        assertNotNull(result);
+        assertEquals(currentGroup.getUserGroup().getId(), result.getCurrentGroupId());
+        verify(player2GroupRepository, never()).findAllByPlayer(any());
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenCurrentGroupExpired_ShouldRecordNextActiveGroup() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        final var playersList = createPlayer2Groups();
+        when(player2GroupRepository.findCurrentByPlayer(player)).thenReturn(playersList.get(0));
+        when(player2GroupRepository.findAllByPlayer(player)).thenReturn(playersList);
+
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player).join();
+
+        //then
+        assertEquals(playersList.get(1).getUserGroup().getId(), result.getCurrentGroupId());
+        verify(playerCurrentGroupRepository, times(1)).save(argThat(currentGroup -> currentGroup.getAssignmentId() == playersList.get(1).getId()));
+    }
+
+    @Test
+    void getPlayersActiveGroupAsync_WhenCurrentGroupExpired_ShouldNotLockOnReadPath() throws Exception {
+        //given
+        final List<Runnable> databaseTasks = new ArrayList<>();
+        underTest = new PlayerService(playerRepository, player2GroupRepository, playerCurrentGroupRepository, playerCacheManager, playerWriteQueue, transactionManager, databaseTasks::add);
+        final var player = createMockedPlayer();
+        final var playersList = createPlayer2Groups();
+        when(player2GroupRepository.findCurrentByPlayer(player)).thenReturn(playersList.get(0));
+        when(player2GroupRepository.findAllByPlayer(player)).thenReturn(playersList);
+
+        //when
+        final var result = underTest.getPlayersActiveGroupAsync(player);
+        databaseTasks.remove(0).run();
+
+        //then
+        assertEquals(playersList.get(1).getUserGroup().getId(), result.get().getCurrentGroupId());
+        verify(playerRepository, never()).lockById(any());
+        verify(playerCurrentGroupRepository, never()).save(any());
+        assertEquals(1, databaseTasks.size());
+
+        //when the scheduled refresh runs
+        databaseTasks.remove(0).run();
+
+        //then
+        verify(playerRepository, times(1)).lockById(player.getUuid());
+        verify(playerCurrentGroupRepository, times(1)).save(argThat(currentGroup -> currentGroup.getAssignmentId() == playersList.get(1).getId()));
     }
 
     @Test
-    void savePlayer_WhenPlayerValid_shouldSaveToDB() throws Exception {
+    void getActiveGroupsAsync_WhenPlayersNotInCache_ShouldReadThemInOneBatchWithoutCaching() throws Exception {
+        //given
+        final var cachedPlayer = new Player("cachedUuid", "cachedName");
+        final var cachedDao = new PlayerDAO("cachedUuid", 3L, "cachedName", 2L, "groupName", "PREFIX", null, 0L, new Timestamp(System.currentTimeMillis()));
+        final var player = createMockedPlayer();
+        final var activeGroup = createPlayer2Groups().get(1);
+        when(player2GroupRepository.findActiveByPlayers(Set.of(player.getUuid()))).thenReturn(List.of(activeGroup));
+        when(playerCacheManager.getAllPresent(List.of(cachedPlayer.getUuid(), player.getUuid()))).thenReturn(Map.of(cachedPlayer.getUuid(), cachedDao));
+
+        //when
+        final var result = underTest.getActiveGroupsAsync(List.of(cachedPlayer, player)).join();
+
+        //then
+        assertEquals(2, result.size());
+        assertEquals(cachedDao, result.get(cachedPlayer.getUuid()));
+        assertEquals(activeGroup.getUserGroup().getId(), result.get(player.getUuid()).getCurrentGroupId());
+        verify(player2GroupRepository, times(1)).findActiveByPlayers(any());
+        verify(player2GroupRepository, never()).findNewestActiveByPlayers(any());
+        verify(player2GroupRepository, never()).findAllByPlayer(any());
+        verify(playerCacheManager, never()).addToCache(any());
+        verify(playerCacheManager, never()).addAllToCache(any());
+        verify(playerCacheManager, never()).get(any(), any());
+    }
+
+    @Test
+    void getActiveGroupsAsync_WhenAllPlayersCached_ShouldNotReadTheDatabase() throws Exception {
+        //given
+        final var cachedPlayer = new Player("cachedUuid", "cachedName");
+        final var cachedDao = new PlayerDAO("cachedUuid", 3L, "cachedName", 2L, "groupName", "PREFIX", null, 0L, new Timestamp(System.currentTimeMillis()));
+        when(playerCacheManager.getAllPresent(List.of(cachedPlayer.getUuid()))).thenReturn(Map.of(cachedPlayer.getUuid(), cachedDao));
+
+        //when
+        final var result = underTest.getActiveGroupsAsync(List.of(cachedPlayer)).join();
+
+        //then
+        assertEquals(Map.of(cachedPlayer.getUuid(), cachedDao), result);
+        verify(player2GroupRepository, never()).findActiveByPlayers(any());
+    }
+
+    @Test
+    void getActiveGroupsAsync_WhenCurrentGroupsExpired_ShouldResolveMissesInOneHistoryQuery() throws Exception {
+        //given
+        final var cachedPlayer = new Player("cachedUuid", "cachedName");
+        final var cachedDao = new PlayerDAO("cachedUuid", 3L, "cachedName", 2L, "groupName", "PREFIX", null, 0L, new Timestamp(System.currentTimeMillis()));
+        final var player = createMockedPlayer();
+        final var activeGroup = createPlayer2Groups().get(1);
+        when(player2GroupRepository.findActiveByPlayers(Set.of(player.getUuid()))).thenReturn(List.of());
+        when(player2GroupRepository.findNewestActiveByPlayers(Set.of(player.getUuid()))).thenReturn(List.of(activeGroup));
+        when(player2GroupRepository.findAllByPlayer(any())).thenReturn(List.of(activeGroup));
+        when(playerCacheManager.getAllPresent(List.of(cachedPlayer.getUuid(), player.getUuid()))).thenReturn(Map.of(cachedPlayer.getUuid(), cachedDao));
+
+        //when
+        final var result = underTest.getActiveGroupsAsync(List.of(cachedPlayer, player)).join();
+
+        //then
+        assertEquals(2, result.size());
+        assertEquals(activeGroup.getUserGroup().getId(), result.get(player.getUuid()).getCurrentGroupId());
+        verify(player2GroupRepository, times(1)).findNewestActiveByPlayers(any());
+        verify(player2GroupRepository, never()).findCurrentByPlayer(any());
+        verify(playerCurrentGroupRepository, times(1)).save(argThat(currentGroup -> currentGroup.getAssignmentId() == 1L));
+    }
+
+    @Test
+    void savePlayer_WhenPlayerValid_shouldQueueForSaving() {
         //given
         final var player = createMockedPlayer();
-        when(playerRepository.save(player)).thenReturn(player);
 
         //when
         final var result = underTest.savePlayer(player);
@@ -131,6 +379,7 @@ class PlayerServiceTest {
         //then
         assertNotNull(result);
         assertEquals("uuid", result.getUuid());
+        verify(playerWriteQueue, times(1)).enqueue(player);
     }
 
     @Test
@@ -144,9 +393,26 @@ class PlayerServiceTest {
         underTest.addPlayerToGroup(player, group);
 
         //then
+        verify(playerWriteQueue, times(1)).flush(player.getUuid());
+        verify(playerRepository, times(1)).lockById(player.getUuid());
         verify(playerCacheManager, times(1)).addToCache(any());
     }
 
+    @Test
+    void addPlayerToGroup_WhenPlayerHasActiveGroup_ShouldRecordItAsLastGroup() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        final var group = new UserGroup(3L, "newGroup", "PREFIX");
+        when(player2GroupRepository.findAllByPlayer(player)).thenReturn(createPlayer2Groups());
+        when(player2GroupRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        underTest.addPlayerToGroup(player, group);
+
+        //then
+        verify(player2GroupRepository, times(1)).save(argThat(player2Group -> player2Group.getLastGroupId() == 2L));
+    }
+
     @Test
     void toPlayer_WhenValidBukkitPlayer_ShouldConvert() {
         //given
@@ -7,6 +7,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.pano.playlegendpermissions.config.localization.LocalizationManager;
 import org.pano.playlegendpermissions.config.localization.MessageKey;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
 import org.pano.playlegendpermissions.exceptions.GroupAlreadyExistsException;
 import org.pano.playlegendpermissions.exceptions.GroupNotFoundException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
@@ -16,6 +17,7 @@ import org.pano.playlegendpermissions.repository.PlayerRepository;
 import org.pano.playlegendpermissions.repository.UserGroupRepository;
 import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
 import org.pano.playlegendpermissions.service.cache.UserGroupCacheManager;
+import org.pano.playlegendpermissions.store.Page;
 
 import java.sql.Timestamp;
 import java.util.List;
@@ -109,34 +111,70 @@ class UserGroupServiceTest {
         assertEquals(GROUP_ALREADY_EXIST.getKey(), thrown.getMessage());
     }
 
+    @Test
+    void getGroupByName_WhenDatabaseUnavailable_ShouldNotReportGroupAsMissing() throws Exception {
+        //given
+        when(userGroupCacheManager.getByName(any())).thenThrow(new DatabaseUnavailableException());
+
+        //when
+        Assertions.assertThrows(DatabaseUnavailableException.class, () -> underTest.getGroupByName("groupName"));
+
+        //then
+        verify(localization, never()).getFormattedMessage(eq(MessageKey.GROUP_NOT_FOUND), eq("groupName"));
+    }
+
     @Test
     void updatePrefix_WhenGroupExists_ShouldUpdatePrefix() throws Exception {
         //given
         final var group = createMockUserGroup();
         when(userGroupCacheManager.getByName(any())).thenReturn(group);
         when(userGroupRepository.save(group)).thenReturn(group);
-        when(playerCacheManager.getAll()).thenReturn(List.of(createMockPlayerDao()));
+        when(playerCacheManager.getByGroupId(group.getId())).thenReturn(List.of(createMockPlayerDao()));
         //when
         underTest.updatePrefix("groupName", "PREFIX");
 
         //then
         verify(playerCacheManager, times(1)).addToCache(any());
+        verify(playerCacheManager, never()).getAll();
+    }
+
+    @Test
+    void updatePrefix_WhenMembersAreCached_ShouldRefreshOnlyTheMembers() throws Exception {
+        //given
+        final var group = createMockUserGroup();
+        final var cachedPlayers = new PlayerCacheManager();
+        final var member = createMockPlayerDao();
+        final var otherPlayer = new PlayerDAO("otherUuid", 3L, "otherName", 5L, "otherGroup", "OTHER", null, 0L, new Timestamp(System.currentTimeMillis()));
+        cachedPlayers.addAllToCache(List.of(member, otherPlayer));
+        underTest = new UserGroupService(userGroupRepository, userGroupCacheManager, cachedPlayers, playerRepository, localization);
+        when(userGroupCacheManager.getByName(any())).thenReturn(group);
+        when(userGroupRepository.save(group)).thenReturn(group);
+
+        //when
+        underTest.updatePrefix(group.getGroupName(), "NEW");
+
+        //then
+        assertEquals("NEW", cachedPlayers.getById(member.getUuid()).getCurrentGroupPrefix());
+        assertEquals("OTHER", cachedPlayers.getById(otherPlayer.getUuid()).getCurrentGroupPrefix());
+        assertEquals(List.of(cachedPlayers.getById(member.getUuid())), cachedPlayers.getByGroupId(group.getId()));
+        assertEquals(member.getUuid(), cachedPlayers.getByName(member.getName()).getUuid());
     }
 
     @Test
-    void getPlayerByGroupName_WhenGroupIsAvailable_ShouldReturnPlayers() throws Exception {
+    void getPlayerPageByGroupName_WhenGroupIsAvailable_ShouldReturnPageWithCursor() throws Exception {
         //given
         final var group = createMockUserGroup();
         final var player = createMockedPlayer();
         when(userGroupCacheManager.getByName(any())).thenReturn(group);
-        when(playerRepository.getPlayerHistoryInGroup(any())).thenReturn(List.of(player));
+        when(playerRepository.getPlayerHistoryInGroupPage(group, null, 1)).thenReturn(new Page<>(List.of(player), player.getUuid()));
 
         //when
-        final var result = underTest.getPlayerByGroupName("groupName");
+        final var result = underTest.getPlayerPageByGroupName("groupName", null, 1);
 
         //then
         assertNotNull(result);
-        assertEquals("uuid", result.get(0).getUuid());
+        assertEquals("uuid", result.getItems().get(0).getUuid());
+        assertEquals("uuid", result.getNextCursor());
     }
 
     private UserGroup createMockUserGroup() {
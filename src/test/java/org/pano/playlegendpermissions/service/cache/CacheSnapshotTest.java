@@ -0,0 +1,141 @@
+package org.pano.playlegendpermissions.service.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
+import org.pano.playlegendpermissions.model.UserGroup;
+import org.pano.playlegendpermissions.repository.UserGroupRepository;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+class CacheSnapshotTest {
+    @Mock
+    private UserGroupRepository userGroupRepository;
+    @TempDir
+    Path tempDir;
+
+    private File file;
+    private CacheSnapshot underTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        file = tempDir.resolve("cache.snapshot").toFile();
+        underTest = new CacheSnapshot(file, TimeUnit.HOURS.toMillis(1), Logger.getLogger("test"));
+    }
+
+    @Test
+    void load_WhenSnapshotWritten_ShouldRestoreCachesAsStale() {
+        //given
+        final var userGroupCacheManager = new UserGroupCacheManager(userGroupRepository);
+        final var playerCacheManager = new PlayerCacheManager();
+        final var playerDAO = new PlayerDAO("uuid", 1L, "playerName", 2L, "groupName", null, null, 0L, new Timestamp(System.currentTimeMillis()));
+        userGroupCacheManager.addToCache(new UserGroup(2L, "groupName", "PREFIX"));
+        playerCacheManager.addToCache(playerDAO);
+        underTest.write(userGroupCacheManager, playerCacheManager);
+
+        final var restoredGroups = new UserGroupCacheManager(userGroupRepository);
+        final var restoredPlayers = new PlayerCacheManager();
+
+        //when
+        final var result = underTest.load(restoredGroups, restoredPlayers);
+
+        //then
+        Assertions.assertTrue(result);
+        Assertions.assertEquals("PREFIX", restoredGroups.getById(2L).getPrefix());
+        Assertions.assertEquals("groupName", restoredPlayers.getById("uuid").getCurrentGroupName());
+        Assertions.assertNull(restoredPlayers.getById("uuid").getCurrentGroupPrefix());
+        Assertions.assertTrue(restoredPlayers.takeStale("uuid"));
+    }
+
+    @Test
+    void load_WhenGroupOfPlayerExpired_ShouldSkipPlayer() {
+        //given
+        final var playerCacheManager = new PlayerCacheManager();
+        playerCacheManager.addToCache(new PlayerDAO("uuid", 1L, "playerName", 2L, "groupName", "PREFIX",
+                new Timestamp(System.currentTimeMillis() - 1000), 0L, new Timestamp(System.currentTimeMillis())));
+        underTest.write(new UserGroupCacheManager(userGroupRepository), playerCacheManager);
+
+        final var restoredPlayers = new PlayerCacheManager();
+
+        //when
+        underTest.load(new UserGroupCacheManager(userGroupRepository), restoredPlayers);
+
+        //then
+        Assertions.assertTrue(restoredPlayers.getAll().isEmpty());
+    }
+
+    @Test
+    void load_WhenNoSnapshotExists_ShouldReturnFalse() {
+        //when //then
+        Assertions.assertFalse(underTest.load(new UserGroupCacheManager(userGroupRepository), new PlayerCacheManager()));
+    }
+
+    @Test
+    void load_WhenStringLengthIsCorrupt_ShouldReturnFalseWithoutAllocatingIt() throws Exception {
+        //given
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.writeInt(0x50504552);
+            out.writeInt(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(1);
+            out.writeLong(2L);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        final var restoredGroups = new UserGroupCacheManager(userGroupRepository);
+
+        //when
+        final var result = underTest.load(restoredGroups, new PlayerCacheManager());
+
+        //then
+        Assertions.assertFalse(result);
+        Assertions.assertTrue(restoredGroups.getAll().isEmpty());
+    }
+
+    @Test
+    void load_WhenRecordCountIsCorrupt_ShouldReturnFalseWithoutAllocatingIt() throws Exception {
+        //given
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.writeInt(0x50504552);
+            out.writeInt(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(0);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        final var restoredPlayers = new PlayerCacheManager();
+
+        //when
+        final var result = underTest.load(new UserGroupCacheManager(userGroupRepository), restoredPlayers);
+
+        //then
+        Assertions.assertFalse(result);
+        Assertions.assertTrue(restoredPlayers.getAll().isEmpty());
+    }
+
+    @Test
+    void load_WhenRecordCountIsNegative_ShouldReturnFalse() throws Exception {
+        //given
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.writeInt(0x50504552);
+            out.writeInt(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(-1);
+        }
+
+        //when
+        final var result = underTest.load(new UserGroupCacheManager(userGroupRepository), new PlayerCacheManager());
+
+        //then
+        Assertions.assertFalse(result);
+    }
+}
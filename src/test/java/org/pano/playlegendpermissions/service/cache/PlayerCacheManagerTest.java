@@ -8,6 +8,8 @@ import org.pano.playlegendpermissions.exceptions.PlayerNotFoundException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 
 import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 class PlayerCacheManagerTest {
 
@@ -40,6 +42,93 @@ class PlayerCacheManagerTest {
         );
     }
 
+    @Test
+    void addAllToCache_WhenPlayersAdded_ShouldReturnThemFromGetAllPresent() {
+        //given
+        final var playerDAO = createMockPlayerDao();
+
+        //when
+        underTest.addAllToCache(List.of(playerDAO));
+        final var result = underTest.getAllPresent(List.of(playerDAO.getUuid(), "otherUuid"));
+
+        //then
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(playerDAO, result.get(playerDAO.getUuid()));
+    }
+
+    @Test
+    void getByName_WhenNameDiffersInCase_ShouldReturnPlayer() throws PlayerNotFoundException {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        underTest.addToCache(playerDAO);
+
+        //when
+        final var result = underTest.getByName("PLAYERNAME");
+
+        //then
+        Assertions.assertEquals(playerDAO, result);
+    }
+
+    @Test
+    void getByName_WhenPlayerRenamed_ShouldNotResolveOldName() throws PlayerNotFoundException {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        final var renamedDAO = new PlayerDAO("uuid", 1L, "newName", 2L, "groupName", "PREFIX", null, 1L, new Timestamp(System.currentTimeMillis()));
+        underTest.addToCache(playerDAO);
+
+        //when
+        underTest.addToCache(renamedDAO);
+
+        //then
+        Assertions.assertEquals(renamedDAO, underTest.getByName("newName"));
+        Assertions.assertThrows(PlayerNotFoundException.class, () -> underTest.getByName("playerName"));
+    }
+
+    @Test
+    void getByName_WhenPlayerRemoved_ShouldThrow() {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        underTest.addToCache(playerDAO);
+
+        //when
+        underTest.removeById(playerDAO.getUuid());
+
+        //then
+        Assertions.assertThrows(PlayerNotFoundException.class, () -> underTest.getByName("playerName"));
+    }
+
+    @Test
+    void get_WhenLoadRunning_ShouldShareInFlightLoad() {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        final var load = new CompletableFuture<PlayerDAO>();
+        final var first = underTest.get(playerDAO.getUuid(), uuid -> load);
+
+        //when
+        final var second = underTest.get(playerDAO.getUuid(), uuid -> CompletableFuture.completedFuture(null));
+        load.complete(playerDAO);
+
+        //then
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(playerDAO, underTest.getById(playerDAO.getUuid()));
+    }
+
+    @Test
+    void getByGroupId_WhenPlayerChangesGroup_ShouldOnlyReturnCurrentMembers() {
+        //given
+        final var playerDAO = createMockPlayerDao();
+        final var otherDAO = new PlayerDAO("otherUuid", 3L, "otherName", 2L, "groupName", "PREFIX", null, 0L, new Timestamp(System.currentTimeMillis()));
+        final var movedDAO = new PlayerDAO("uuid", 4L, "playerName", 5L, "otherGroup", "", null, 2L, new Timestamp(System.currentTimeMillis()));
+        underTest.addAllToCache(List.of(playerDAO, otherDAO));
+
+        //when
+        underTest.addToCache(movedDAO);
+
+        //then
+        Assertions.assertEquals(List.of(otherDAO), underTest.getByGroupId(2L));
+        Assertions.assertEquals(List.of(movedDAO), underTest.getByGroupId(5L));
+    }
+
     private PlayerDAO createMockPlayerDao() {
         return new PlayerDAO("uuid", 1L, "playerName", 2L, "groupName", "PREFIX", new Timestamp(System.currentTimeMillis()), 1L, new Timestamp(System.currentTimeMillis()));
     }
@@ -15,6 +15,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class UserGroupCacheManagerTest {
@@ -58,15 +62,15 @@ class UserGroupCacheManagerTest {
     void getByName_CachePresent_ShouldReturnPlayer() throws Exception {
         //given
         final var userGroup = createMockUserGroup();
-        ConcurrentMap<Long, UserGroup> map = new ConcurrentHashMap<>();
-        map.put(userGroup.getId(), userGroup);
-        when(userGroupCache.asMap()).thenReturn(map);
+        underTest.addToCache(userGroup);
+        when(userGroupCache.getIfPresent(userGroup.getId())).thenReturn(userGroup);
 
         //when
-        final var result = underTest.getByName(userGroup.getGroupName());
+        final var result = underTest.getByName("GROUPNAME");
 
         //then
         assertEquals(result.getGroupName(), userGroup.getGroupName());
+        verify(userGroupRepository, never()).findFirstByName(any());
     }
 
     @Test
@@ -83,6 +87,31 @@ class UserGroupCacheManagerTest {
         );
     }
 
+    @Test
+    void getByName_WhenGroupNotFoundRepeatedly_ShouldQueryDatabaseOnce() throws Exception {
+        //when
+        Assertions.assertThrows(GroupNotFoundException.class, () -> underTest.getByName("unknown"));
+        Assertions.assertThrows(GroupNotFoundException.class, () -> underTest.getByName("UNKNOWN"));
+
+        //then
+        verify(userGroupRepository, times(1)).findFirstByName(any());
+    }
+
+    @Test
+    void getByName_WhenMissingGroupAddedToCache_ShouldReturnGroup() throws Exception {
+        //given
+        final var userGroup = createMockUserGroup();
+        Assertions.assertThrows(GroupNotFoundException.class, () -> underTest.getByName(userGroup.getGroupName()));
+        when(userGroupCache.getIfPresent(userGroup.getId())).thenReturn(userGroup);
+
+        //when
+        underTest.addToCache(userGroup);
+        final var result = underTest.getByName(userGroup.getGroupName());
+
+        //then
+        assertEquals(userGroup, result);
+    }
+
     private UserGroup createMockUserGroup() {
         return new UserGroup(2L, "groupName", "PREFIX");
     }
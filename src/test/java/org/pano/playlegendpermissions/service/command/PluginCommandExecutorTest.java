@@ -12,13 +12,19 @@ import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.model.UserGroup;
 import org.pano.playlegendpermissions.service.PlayerService;
 import org.pano.playlegendpermissions.service.UserGroupService;
+import org.pano.playlegendpermissions.store.Page;
 
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class PluginCommandExecutorTest {
@@ -42,7 +48,7 @@ class PluginCommandExecutorTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        underTest = new PluginCommandExecutor(javaPlugin, userGroupService, playerService, localization);
+        underTest = new PluginCommandExecutor(javaPlugin, userGroupService, playerService, localization, Runnable::run, Runnable::run);
     }
 
     @Test
@@ -52,14 +58,15 @@ class PluginCommandExecutorTest {
                 CommandOption.INFO.getCommand()
         };
         final var playerDAO = createMockPlayerDao();
-        when(playerService.getPlayersActiveGroup(any())).thenReturn(playerDAO);
+        when(playerService.getPlayersActiveGroupAsync(any())).thenReturn(CompletableFuture.completedFuture(playerDAO));
 
         //when
         final var result = underTest.onCommand(bukkitPlayer, command, "", args);
 
         //then
         assertTrue(result);
-        verify(playerService, times(1)).getPlayersActiveGroup(any());
+        verify(playerService, times(1)).getPlayersActiveGroupAsync(any());
+        verify(bukkitPlayer, times(7)).sendMessage(any(String.class));
 
     }
 
@@ -77,7 +84,7 @@ class PluginCommandExecutorTest {
 
         };
 
-        when(playerService.getPlayersActiveGroup(any())).thenReturn(playerDAO);
+        when(playerService.getPlayersActiveGroupAsync(any())).thenReturn(CompletableFuture.completedFuture(playerDAO));
         when(bukkitPlayer.hasPermission("pper.administration")).thenReturn(true);
         when(playerService.getPlayer(any())).thenReturn(player);
         when(userGroupService.getGroupByName(userGroup.getGroupName())).thenReturn(userGroup);
@@ -109,7 +116,7 @@ class PluginCommandExecutorTest {
 
         };
 
-        when(playerService.getPlayersActiveGroup(any())).thenReturn(playerDAO);
+        when(playerService.getPlayersActiveGroupAsync(any())).thenReturn(CompletableFuture.completedFuture(playerDAO));
         when(bukkitPlayer.hasPermission("pper.administration")).thenReturn(true);
         when(playerService.getPlayer(any())).thenReturn(player);
         when(userGroupService.getGroupByName(userGroup.getGroupName())).thenReturn(userGroup);
@@ -161,8 +168,8 @@ class PluginCommandExecutorTest {
                 userGroup.getGroupName(),
                 CommandOption.LIST_PLAYER.getCommand()
         };
-        when(userGroupService.getPlayerByGroupName(userGroup.getGroupName())).thenReturn(List.of(player));
-        when(playerService.getPlayersActiveGroup(player)).thenReturn(playerDAO);
+        when(userGroupService.getPlayerPageByGroupName(eq(userGroup.getGroupName()), isNull(), anyInt())).thenReturn(new Page<>(List.of(player), null));
+        when(playerService.getActiveGroupsAsync(List.of(player))).thenReturn(CompletableFuture.completedFuture(Map.of(player.getUuid(), playerDAO)));
         when(bukkitPlayer.hasPermission("pper.administration")).thenReturn(true);
         when(userGroupService.getGroupByName(userGroup.getGroupName())).thenReturn(userGroup);
 
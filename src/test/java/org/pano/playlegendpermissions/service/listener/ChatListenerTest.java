@@ -12,6 +12,8 @@ import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.service.PlayerService;
 
 import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,7 +44,7 @@ class ChatListenerTest {
         final var player = createMockedPlayer();
         final var playerDAO = createMockPlayerDao();
         when(playerService.toPlayer(any())).thenReturn(player);
-        when(playerService.getPlayersActiveGroup(player)).thenReturn(playerDAO);
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(CompletableFuture.completedFuture(playerDAO));
 
         //when
         underTest.onPlayerChat(playerChatEvent);
@@ -50,6 +52,54 @@ class ChatListenerTest {
         verify(playerChatEvent).setFormat(contains("[" + playerDAO.getCurrentGroupPrefix() + "] "));
     }
 
+    @Test
+    void onPlayerChat_WhenGroupNotLoadedYetOnMainThread_ShouldNotWaitForIt() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        when(playerChatEvent.isAsynchronous()).thenReturn(false);
+        when(playerService.toPlayer(any())).thenReturn(player);
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(new CompletableFuture<>());
+
+        //when
+        underTest.onPlayerChat(playerChatEvent);
+
+        //then
+        verify(playerService, times(1)).getPlayersActiveGroupAsync(player);
+        verify(playerChatEvent, never()).setFormat(any());
+    }
+
+    @Test
+    void onPlayerChat_WhenGroupIsLoadingOffMainThread_ShouldWaitForItAndShowPrefix() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        final var playerDAO = createMockPlayerDao();
+        when(playerChatEvent.isAsynchronous()).thenReturn(true);
+        when(playerService.toPlayer(any())).thenReturn(player);
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(CompletableFuture.supplyAsync(() -> playerDAO,
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+
+        //when
+        underTest.onPlayerChat(playerChatEvent);
+
+        //then
+        verify(playerChatEvent).setFormat(contains("[" + playerDAO.getCurrentGroupPrefix() + "] "));
+    }
+
+    @Test
+    void onPlayerChat_WhenGroupLoadTimesOutOffMainThread_ShouldSendMessageWithoutPrefix() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        when(playerChatEvent.isAsynchronous()).thenReturn(true);
+        when(playerService.toPlayer(any())).thenReturn(player);
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(new CompletableFuture<>());
+
+        //when
+        underTest.onPlayerChat(playerChatEvent);
+
+        //then
+        verify(playerChatEvent, never()).setFormat(any());
+    }
+
     @Test
     void onPlayerChat_WhenOperationFailed_ShouldCaptureException() {
         //given
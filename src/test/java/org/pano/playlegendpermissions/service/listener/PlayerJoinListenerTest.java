@@ -1,5 +1,6 @@
 package org.pano.playlegendpermissions.service.listener;
 
+import org.bukkit.Server;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,12 +9,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.pano.playlegendpermissions.config.localization.LocalizationManager;
 import org.pano.playlegendpermissions.config.localization.MessageKey;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
 import org.pano.playlegendpermissions.model.DAO.PlayerDAO;
 import org.pano.playlegendpermissions.model.Player;
 import org.pano.playlegendpermissions.service.PlayerService;
 import org.pano.playlegendpermissions.service.UserGroupService;
 
 import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 
 import static org.mockito.Mockito.*;
 
@@ -31,6 +35,8 @@ class PlayerJoinListenerTest {
     private LocalizationManager localization;
     @Mock
     private JavaPlugin javaPlugin;
+    @Mock
+    private Server server;
 
 
     private PlayerJoinListener underTest;
@@ -38,7 +44,9 @@ class PlayerJoinListenerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        underTest = new PlayerJoinListener(playerService, userGroupService, localization, javaPlugin);
+        when(javaPlugin.getLogger()).thenReturn(Logger.getLogger(PlayerJoinListenerTest.class.getName()));
+        when(javaPlugin.getServer()).thenReturn(server);
+        underTest = new PlayerJoinListener(playerService, userGroupService, localization, javaPlugin, Runnable::run, Runnable::run);
     }
 
     @Test
@@ -49,13 +57,14 @@ class PlayerJoinListenerTest {
         final var prefixString = "[" + playerDao.getCurrentGroupPrefix() + "]";
         when(playerService.toPlayer(any())).thenReturn(player);
         when(playerService.getPlayer(any())).thenReturn(player);
-        when(playerService.getPlayersActiveGroup(player)).thenReturn(playerDao);
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(CompletableFuture.completedFuture(playerDao));
         when(localization.getFormattedMessage(MessageKey.JOIN_MESSAGE, prefixString, playerDao.getName(), playerDao.getCurrentGroupName())).thenReturn(MessageKey.JOIN_MESSAGE.getKey());
         //when
         underTest.onPlayerJoin(event);
 
         //then
-        verify(event, times(1)).setJoinMessage(contains(MessageKey.JOIN_MESSAGE.getKey()));
+        verify(event, times(1)).setJoinMessage(null);
+        verify(server, times(1)).broadcastMessage(contains(MessageKey.JOIN_MESSAGE.getKey()));
 
     }
 
@@ -68,13 +77,47 @@ class PlayerJoinListenerTest {
         when(event.getPlayer()).thenReturn(bukkitPlayer);
         when(playerService.toPlayer(bukkitPlayer)).thenReturn(player);
         when(playerService.getPlayer(any())).thenReturn(null, player);
-        when(playerService.getPlayersActiveGroup(player)).thenReturn(null, playerDao);
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(CompletableFuture.completedFuture(null), CompletableFuture.completedFuture(playerDao));
         when(localization.getFormattedMessage(MessageKey.JOIN_MESSAGE, prefixString, playerDao.getName(), playerDao.getCurrentGroupName())).thenReturn(MessageKey.JOIN_MESSAGE.getKey());
         //when
         underTest.onPlayerJoin(event);
 
         //then
-        verify(event, times(1)).setJoinMessage(contains(MessageKey.JOIN_MESSAGE.getKey()));
+        verify(playerService, times(1)).addPlayerToGroup(eq(player), any());
+        verify(event, times(1)).setJoinMessage(null);
+        verify(server, times(1)).broadcastMessage(contains(MessageKey.JOIN_MESSAGE.getKey()));
+
+    }
+
+    @Test
+    void onPlayerJoin_WhenDisplayNameChanged_ShouldSavePlayer() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        final var playerDao = createMockPlayerDao();
+        when(playerService.toPlayer(any())).thenReturn(player);
+        when(playerService.getPlayer(any())).thenReturn(new Player("uuid", "oldDisplayName"));
+        when(playerService.getPlayersActiveGroupAsync(player)).thenReturn(CompletableFuture.completedFuture(playerDao));
+        //when
+        underTest.onPlayerJoin(event);
+
+        //then
+        verify(playerService, times(1)).savePlayer(player);
+
+    }
+
+    @Test
+    void onPlayerJoin_WhenDatabaseUnavailable_ShouldNotThrow() throws Exception {
+        //given
+        final var player = createMockedPlayer();
+        when(playerService.toPlayer(any())).thenReturn(player);
+        when(playerService.getPlayer(any())).thenThrow(new DatabaseUnavailableException());
+        //when
+        underTest.onPlayerJoin(event);
+
+        //then
+        verify(playerService, never()).savePlayer(any());
+        verify(playerService, never()).getPlayersActiveGroupAsync(any());
+        verify(server, never()).broadcastMessage(any());
 
     }
 
@@ -0,0 +1,58 @@
+package org.pano.playlegendpermissions.service.scheduler;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.pano.playlegendpermissions.repository.Player2GroupRepository;
+import org.pano.playlegendpermissions.store.TransactionManager;
+
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HistoryCompactionSchedulerTest {
+    private static final int BATCH_SIZE = 10;
+    @Mock
+    private JavaPlugin javaPlugin;
+    @Mock
+    private Player2GroupRepository player2GroupRepository;
+    @Mock
+    private TransactionManager transactionManager;
+    private HistoryCompactionScheduler underTest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(javaPlugin.getLogger()).thenReturn(Logger.getLogger(HistoryCompactionSchedulerTest.class.getName()));
+        when(transactionManager.inTransaction(any())).thenAnswer(invocation -> invocation.<TransactionManager.Work<?>>getArgument(0).execute());
+        underTest = new HistoryCompactionScheduler(javaPlugin, player2GroupRepository, transactionManager, 1000L, BATCH_SIZE, 0L, 5);
+    }
+
+    @Test
+    void run_WhenLastBatchIsNotFull_ShouldStop() throws Exception {
+        //Given
+        when(player2GroupRepository.archiveOutdated(any(), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE, 3);
+
+        //When
+        underTest.run();
+
+        //Then
+        verify(player2GroupRepository, times(2)).archiveOutdated(any(), eq(BATCH_SIZE));
+        verify(transactionManager, times(2)).inTransaction(any());
+    }
+
+    @Test
+    void run_WhenEveryBatchIsFull_ShouldStopAfterMaxBatches() throws Exception {
+        //Given
+        when(player2GroupRepository.archiveOutdated(any(), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE);
+
+        //When
+        underTest.run();
+
+        //Then
+        verify(player2GroupRepository, times(5)).archiveOutdated(any(), eq(BATCH_SIZE));
+    }
+}
@@ -13,6 +13,7 @@ import org.pano.playlegendpermissions.service.cache.PlayerCacheManager;
 
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -32,7 +33,7 @@ class PermissionCheckSchedulerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        underTest = new PermissionCheckScheduler(javaPlugin, playerCacheManager, playerService, localization);
+        underTest = new PermissionCheckScheduler(javaPlugin, playerCacheManager, playerService, localization, Runnable::run);
     }
 
     @Test
@@ -41,7 +42,7 @@ class PermissionCheckSchedulerTest {
         final var playerDAO = createMockPlayerDaoExpired();
         final var activePlayerDao = createMockPlayerDao();
         when(playerCacheManager.getAll()).thenReturn(List.of(playerDAO));
-        when(playerService.getPlayersActiveGroup(any())).thenReturn(activePlayerDao);
+        when(playerService.getPlayersActiveGroupAsync(any())).thenReturn(CompletableFuture.completedFuture(activePlayerDao));
         when(localization.getFormattedMessage(PLAYER_NTFC_GROUP_EXPIRED, playerDAO.getCurrentGroupName(), activePlayerDao.getCurrentGroupName())).thenReturn(PLAYER_NTFC_GROUP_EXPIRED.getKey());
         //When
         underTest.run();
@@ -0,0 +1,77 @@
+package org.pano.playlegendpermissions.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+    private static final int FAILURE_THRESHOLD = 3;
+
+    private CircuitBreaker underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CircuitBreaker("Database", FAILURE_THRESHOLD, TimeUnit.HOURS.toMillis(1), () -> {
+            throw new SQLException("unreachable");
+        }, Logger.getLogger(CircuitBreakerTest.class.getName()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    void recordFailure_WhenConnectionTimedOutBecauseDatabaseIsUnreachable_ShouldOpenRightAway() {
+        //when
+        underTest.recordFailure(new SQLTransientConnectionException("Connection is not available, request timed out",
+                new SQLException("Communications link failure")));
+
+        //then
+        assertTrue(underTest.isOpen());
+    }
+
+    @Test
+    void recordFailure_WhenConnectionTimedOutBecausePoolIsExhausted_ShouldCountTowardsThreshold() {
+        //when
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            underTest.recordFailure(new SQLTransientConnectionException("Connection is not available, request timed out"));
+        }
+
+        //then
+        assertFalse(underTest.isOpen());
+
+        //when
+        underTest.recordFailure(new SQLTransientConnectionException("Connection is not available, request timed out"));
+
+        //then
+        assertTrue(underTest.isOpen());
+    }
+
+    @Test
+    void recordFailure_WhenSuccessInBetween_ShouldCountConsecutiveFailuresOnly() {
+        //when
+        underTest.recordFailure(new SQLException("refused"));
+        underTest.recordFailure(new SQLException("refused"));
+        underTest.recordSuccess();
+        underTest.recordFailure(new SQLException("refused"));
+        underTest.recordFailure(new SQLException("refused"));
+
+        //then
+        assertFalse(underTest.isOpen());
+
+        //when
+        underTest.recordFailure(new SQLException("refused"));
+
+        //then
+        assertTrue(underTest.isOpen());
+    }
+}
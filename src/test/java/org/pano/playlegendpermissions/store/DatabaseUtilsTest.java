@@ -0,0 +1,183 @@
+package org.pano.playlegendpermissions.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pano.playlegendpermissions.model.Player;
+import org.pano.playlegendpermissions.model.Player2Group;
+import org.pano.playlegendpermissions.model.UserGroup;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseUtilsTest {
+
+    @TempDir
+    File folder;
+
+    private final DatabaseUtils<UserGroup> groupStore = new DatabaseUtils<>();
+    private final DatabaseUtils<Player> playerStore = new DatabaseUtils<>();
+    private final DatabaseUtils<Player2Group> assignmentStore = new DatabaseUtils<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SqliteTestDatabase.startMigrated(folder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqliteTestDatabase.stop();
+    }
+
+    @Test
+    void saveObjectToDatabase_ShouldReturnGeneratedKeyAndBeFoundById() throws Exception {
+        //when
+        final long id = groupStore.saveObjectToDatabase(new UserGroup("Admin", "A"));
+
+        //then
+        try (CustomResultSet<UserGroup> result = groupStore.findById(UserGroup.class, id)) {
+            assertEquals(1, result.getResults().size());
+            assertEquals("Admin", result.getResults().get(0).getGroupName());
+            assertEquals("A", result.getResults().get(0).getPrefix());
+        }
+    }
+
+    @Test
+    void upsertObjectInDatabase_WhenRowExists_ShouldUpdateIt() throws Exception {
+        //given
+        playerStore.upsertObjectInDatabase(new Player("uuid", "oldName"));
+
+        //when
+        playerStore.upsertObjectInDatabase(new Player("uuid", "newName"));
+
+        //then
+        try (CustomResultSet<Player> result = playerStore.findAll(Player.class)) {
+            assertEquals(1, result.getResults().size());
+            assertEquals("newName", result.getResults().get(0).getDisplayName());
+        }
+    }
+
+    @Test
+    void updateObjectsInDatabase_ShouldUpdateAllGivenRowsOnly() throws Exception {
+        //given
+        playerStore.upsertObjectInDatabase(new Player("uuid1", "first"));
+        playerStore.upsertObjectInDatabase(new Player("uuid2", "second"));
+        playerStore.upsertObjectInDatabase(new Player("uuid3", "third"));
+
+        //when
+        playerStore.updateObjectsInDatabase(List.of(new Player("uuid1", "renamedFirst"), new Player("uuid3", "renamedThird")));
+
+        //then
+        try (CustomResultSet<Player> result = playerStore.findAll(Player.class)) {
+            final List<String> names = new ArrayList<>();
+            result.getResults().forEach(player -> names.add(player.getUuid() + "=" + player.getDisplayName()));
+            assertEquals(3, names.size());
+            assertTrue(names.containsAll(List.of("uuid1=renamedFirst", "uuid2=second", "uuid3=renamedThird")));
+        }
+    }
+
+    @Test
+    void findByField_ShouldReturnMatchingRowsOnly() throws Exception {
+        //given
+        playerStore.upsertObjectInDatabase(new Player("uuid1", "first"));
+        playerStore.upsertObjectInDatabase(new Player("uuid2", "second"));
+
+        //when
+        try (CustomResultSet<Player> result = playerStore.findByField(Player.class, "displayName", "second")) {
+            //then
+            assertEquals(1, result.getResults().size());
+            assertEquals("uuid2", result.getResults().get(0).getUuid());
+        }
+    }
+
+    @Test
+    void findByField_ShouldResolveForeignEntities() throws Exception {
+        //given
+        final long groupId = groupStore.saveObjectToDatabase(new UserGroup("Admin", "A"));
+        final Player player = new Player("uuid", "name");
+        playerStore.upsertObjectInDatabase(player);
+        final Timestamp expireDate = new Timestamp(System.currentTimeMillis() + 60_000);
+        final Timestamp createDate = new Timestamp(System.currentTimeMillis());
+        assignmentStore.saveObjectToDatabase(new Player2Group(0, player, new UserGroup(groupId, "Admin", "A"), expireDate, createDate, 1));
+
+        //when
+        try (CustomResultSet<Player2Group> result = assignmentStore.findByField(Player2Group.class, "expireDate", expireDate)) {
+            //then
+            assertEquals(1, result.getResults().size());
+            final Player2Group assignment = result.getResults().get(0);
+            assertEquals("uuid", assignment.getPlayer().getUuid());
+            assertEquals("Admin", assignment.getUserGroup().getGroupName());
+            assertEquals(expireDate, assignment.getExpireDate());
+            assertEquals(createDate, assignment.getCreateDate());
+        }
+    }
+
+    @Test
+    void streamAll_WhenMoreRowsThanFetchSize_ShouldMapAllRowsAndCloseTheCursor() throws Exception {
+        //given
+        DatabaseConfig.fetchSize = 2;
+        for (int i = 0; i < 7; i++) {
+            playerStore.upsertObjectInDatabase(new Player("uuid" + i, "name" + i));
+        }
+
+        //when
+        final CustomResultSet<Player> cursor = playerStore.streamAll(Player.class);
+        final List<String> uuids = new ArrayList<>();
+        for (Player player : cursor) {
+            uuids.add(player.getUuid());
+        }
+
+        //then
+        assertEquals(7, uuids.size());
+        assertTrue(cursor.isClosed());
+        assertThrows(IllegalStateException.class, cursor::getResults);
+        try (CustomResultSet<Player> result = playerStore.findAll(Player.class)) {
+            assertEquals(7, result.getResults().size());
+        }
+    }
+
+    @Test
+    void streamAll_WhenStreamIsClosedEarly_ShouldReleaseTheConnection() throws Exception {
+        //given
+        DatabaseConfig.fetchSize = 2;
+        for (int i = 0; i < 7; i++) {
+            playerStore.upsertObjectInDatabase(new Player("uuid" + i, "name" + i));
+        }
+
+        //when
+        try (Stream<Player> stream = playerStore.streamAll(Player.class).stream()) {
+            assertEquals(3, stream.limit(3).count());
+        }
+
+        //then
+        try (CustomResultSet<Player> result = playerStore.findAll(Player.class)) {
+            assertEquals(7, result.getResults().size());
+        }
+    }
+
+    @Test
+    void findPage_ShouldReturnAllRowsInKeyOrder() throws Exception {
+        //given
+        for (int i = 0; i < 4; i++) {
+            groupStore.saveObjectToDatabase(new UserGroup("Group" + i, ""));
+        }
+
+        //when
+        final List<Long> ids = new ArrayList<>();
+        Page<UserGroup> page = groupStore.findPage(UserGroup.class, null, 2);
+        page.getItems().forEach(group -> ids.add(group.getId()));
+        while (page.hasNext()) {
+            page = groupStore.findPage(UserGroup.class, page.getNextCursor(), 2);
+            page.getItems().forEach(group -> ids.add(group.getId()));
+        }
+
+        //then
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids);
+    }
+}
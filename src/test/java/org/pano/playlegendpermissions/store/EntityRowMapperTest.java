@@ -0,0 +1,105 @@
+package org.pano.playlegendpermissions.store;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.pano.playlegendpermissions.config.annotations.Column;
+import org.pano.playlegendpermissions.config.annotations.Table;
+import org.pano.playlegendpermissions.model.Player2Group;
+import org.pano.playlegendpermissions.model.UserGroup;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import static org.mockito.Mockito.when;
+
+class EntityRowMapperTest {
+    @Mock
+    private ResultSet resultSet;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void mapRow_WhenConstructorMatchesColumns_ShouldUseConstructor() throws Exception {
+        //given
+        when(resultSet.getLong(1)).thenReturn(2L);
+        when(resultSet.getString(2)).thenReturn("groupName");
+        when(resultSet.getString(3)).thenReturn("PREFIX");
+
+        //when
+        final UserGroup result = EntityRowMapper.of(UserGroup.class).mapRow(resultSet);
+
+        //then
+        Assertions.assertEquals(2L, result.getId());
+        Assertions.assertEquals("groupName", result.getGroupName());
+        Assertions.assertEquals("PREFIX", result.getPrefix());
+    }
+
+    @Test
+    void mapRow_WhenEntityHasForeignKeys_ShouldReadJoinedColumnsAfterPlainColumns() throws Exception {
+        //given
+        final var expire = new Timestamp(2000L);
+        final var created = new Timestamp(1000L);
+        // player2group: id, expire_datetime, create_date, last_group_id
+        when(resultSet.getLong(1)).thenReturn(7L);
+        when(resultSet.getTimestamp(2)).thenReturn(expire);
+        when(resultSet.getTimestamp(3)).thenReturn(created);
+        when(resultSet.getLong(4)).thenReturn(3L);
+        // player: uuid, display_name, create_date
+        when(resultSet.getString(5)).thenReturn("uuid");
+        when(resultSet.getString(6)).thenReturn("displayName");
+        // user_group: id, name, prefix
+        when(resultSet.getLong(8)).thenReturn(2L);
+        when(resultSet.getString(9)).thenReturn("groupName");
+        when(resultSet.getString(10)).thenReturn("PREFIX");
+
+        //when
+        final Player2Group result = EntityRowMapper.of(Player2Group.class).mapRow(resultSet);
+
+        //then
+        Assertions.assertEquals(7L, result.getId());
+        Assertions.assertEquals(expire, result.getExpireDate());
+        Assertions.assertEquals(created, result.getCreateDate());
+        Assertions.assertEquals(3L, result.getLastGroupId());
+        Assertions.assertEquals("uuid", result.getPlayer().getUuid());
+        Assertions.assertEquals("displayName", result.getPlayer().getDisplayName());
+        Assertions.assertEquals(2L, result.getUserGroup().getId());
+        Assertions.assertEquals("groupName", result.getUserGroup().getGroupName());
+        Assertions.assertEquals("PREFIX", result.getUserGroup().getPrefix());
+    }
+
+    @Test
+    void mapRow_WhenNoConstructorMatchesColumns_ShouldUseSetters() throws Exception {
+        //given
+        when(resultSet.getLong(1)).thenReturn(4L);
+        when(resultSet.getString(2)).thenReturn("name");
+
+        //when
+        final SetterEntity result = EntityRowMapper.of(SetterEntity.class).mapRow(resultSet);
+
+        //then
+        Assertions.assertEquals(4L, result.id);
+        Assertions.assertEquals("name", result.name);
+    }
+
+    @Table("setter_entity")
+    static class SetterEntity {
+        @Column(name = "id", isPrimary = true)
+        private long id;
+        @Column(name = "name")
+        private String name;
+
+        SetterEntity() {
+        }
+
+        SetterEntity(String name, long id) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.pano.playlegendpermissions.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesTrackerTest {
+
+    private final ReadYourWritesTracker underTest = new ReadYourWritesTracker(60_000);
+
+    @Test
+    void isRecentlyWritten_WhenSameValueWasWrittenToAnotherTable_ShouldReturnFalse() {
+        //given
+        underTest.markWritten(ReadYourWritesTracker.key("user_group", 1L));
+
+        //then
+        assertTrue(underTest.isRecentlyWritten(ReadYourWritesTracker.key("user_group", 1L)));
+        assertFalse(underTest.isRecentlyWritten(ReadYourWritesTracker.key("player2group", 1L)));
+    }
+
+    @Test
+    void isRecentlyWritten_ShouldIgnoreCaseOfNames() {
+        //given
+        underTest.markWritten(ReadYourWritesTracker.key("player", "Steve"));
+
+        //then
+        assertTrue(underTest.isRecentlyWritten(ReadYourWritesTracker.key("player", "steve")));
+    }
+
+    @Test
+    void isRecentlyWritten_WhenKeyIsNull_ShouldReturnFalse() {
+        //given
+        underTest.markWritten(ReadYourWritesTracker.key("player", null));
+
+        //then
+        assertFalse(underTest.isRecentlyWritten(null));
+    }
+}
@@ -0,0 +1,150 @@
+package org.pano.playlegendpermissions.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class SchemaMigratorTest {
+
+    @TempDir
+    File folder;
+
+    private SchemaMigrator underTest;
+
+    @BeforeEach
+    void setUp() {
+        SqliteTestDatabase.start(folder);
+        underTest = new SchemaMigrator(new SqliteDialect(), SqliteTestDatabase.TABLE_PREFIX, Logger.getLogger(SchemaMigratorTest.class.getName()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqliteTestDatabase.stop();
+    }
+
+    @Test
+    void migrate_OnEmptyDatabase_ShouldApplyAllMigrations() throws Exception {
+        //when
+        final int applied = underTest.migrate();
+
+        //then
+        assertEquals(4, applied);
+        assertEquals(4, queryInt("SELECT MAX(version) FROM test_schema_version"));
+        assertTrue(tableExists("test_player_current_group"));
+        assertTrue(tableExists("test_player2group_archive"));
+    }
+
+    @Test
+    void migrate_WhenAlreadyMigrated_ShouldApplyNothing() throws Exception {
+        //given
+        underTest.migrate();
+
+        //when
+        final int applied = underTest.migrate();
+
+        //then
+        assertEquals(0, applied);
+        assertEquals(4, queryInt("SELECT COUNT(*) FROM test_schema_version"));
+    }
+
+    @Test
+    void migrate_WhenVersionWasNotRecorded_ShouldRunMigrationAgain() throws Exception {
+        //given
+        underTest.migrate();
+        try (Connection conn = DatabaseConfig.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM test_schema_version WHERE version = 4");
+        }
+
+        //when
+        final int applied = underTest.migrate();
+
+        //then
+        assertEquals(1, applied);
+        assertEquals(4, queryInt("SELECT MAX(version) FROM test_schema_version"));
+    }
+
+    @Test
+    void migrate_ShouldHoldTheMigrationLockWhileApplying() throws Exception {
+        //given
+        final SqlDialect dialect = spy(new SqliteDialect());
+        underTest = new SchemaMigrator(dialect, SqliteTestDatabase.TABLE_PREFIX, Logger.getLogger(SchemaMigratorTest.class.getName()));
+
+        //when
+        underTest.migrate();
+
+        //then
+        final InOrder inOrder = inOrder(dialect);
+        inOrder.verify(dialect).acquireMigrationLock(any(), endsWith("test_schema_migration"), anyInt());
+        inOrder.verify(dialect).getMigrationLocation();
+        inOrder.verify(dialect).releaseMigrationLock(any(), endsWith("test_schema_migration"));
+    }
+
+    @Test
+    void migrate_WhenMigrationLockIsNotAcquired_ShouldFailWithoutApplyingAnything() throws Exception {
+        //given
+        final SqlDialect dialect = spy(new SqliteDialect());
+        doReturn(false).when(dialect).acquireMigrationLock(any(), any(), anyInt());
+        underTest = new SchemaMigrator(dialect, SqliteTestDatabase.TABLE_PREFIX, Logger.getLogger(SchemaMigratorTest.class.getName()));
+
+        //when
+        assertThrows(SQLException.class, () -> underTest.migrate());
+
+        //then
+        assertFalse(tableExists("test_schema_version"));
+        verify(dialect, never()).releaseMigrationLock(any(), any());
+    }
+
+    @Test
+    void migrate_ShouldStoreDefaultTimestampsAsEpochMillis() throws Exception {
+        //given
+        underTest.migrate();
+        final long before = System.currentTimeMillis();
+
+        //when
+        try (Connection conn = DatabaseConfig.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO test_player (uuid, display_name) VALUES ('uuid', 'name')");
+        }
+
+        //then
+        final long createDate = queryLong("SELECT create_date FROM test_player WHERE typeof(create_date) = 'integer'");
+        assertTrue(createDate >= before - 1000 && createDate <= System.currentTimeMillis() + 1000);
+    }
+
+    private boolean tableExists(final String table) throws Exception {
+        return queryInt("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'") == 1;
+    }
+
+    private int queryInt(final String sql) throws Exception {
+        return (int) queryLong(sql);
+    }
+
+    private long queryLong(final String sql) throws Exception {
+        try (Connection conn = DatabaseConfig.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet resultSet = stmt.executeQuery(sql)) {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        }
+    }
+}
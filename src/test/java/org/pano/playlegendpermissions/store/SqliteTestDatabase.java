@@ -0,0 +1,58 @@
+package org.pano.playlegendpermissions.store;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Starts {@link DatabaseConfig} on a SQLite database file in a temporary folder, for tests running real statements.
+ */
+public final class SqliteTestDatabase {
+    public static final String TABLE_PREFIX = "test_";
+
+    private SqliteTestDatabase() {
+    }
+
+    /**
+     * Sets up the data source on a new SQLite database. The schema is not migrated.
+     *
+     * @param folder The folder the database file is created in.
+     */
+    public static void start(final File folder) {
+        final YamlConfiguration config = new YamlConfiguration();
+        config.set("defaultGroup.name", "Player");
+        config.set("defaultGroup.prefix", "");
+        config.set("database.type", "sqlite");
+        config.set("database.file", "test.db");
+        config.set("database.tablePrefix", TABLE_PREFIX);
+        config.set("database.metrics.slowQueryThreshold", 0);
+        config.set("database.pool.registerMbeans", false);
+        config.set("database.pool.properties.mysql.rewriteBatchedStatements", true);
+
+        final JavaPlugin plugin = mock(JavaPlugin.class);
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getDataFolder()).thenReturn(folder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(SqliteTestDatabase.class.getName()));
+        DatabaseConfig.setupDataSource(plugin);
+    }
+
+    /**
+     * Sets up the data source on a new SQLite database and applies all migrations.
+     *
+     * @param folder The folder the database file is created in.
+     * @throws Exception If the schema could not be created.
+     */
+    public static void startMigrated(final File folder) throws Exception {
+        start(folder);
+        DatabaseConfig.initializeDatabase();
+    }
+
+    public static void stop() {
+        DatabaseConfig.closeDataSource();
+    }
+}
@@ -0,0 +1,90 @@
+package org.pano.playlegendpermissions.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.pano.playlegendpermissions.exceptions.DatabaseUnavailableException;
+import org.pano.playlegendpermissions.model.Player;
+
+import java.sql.SQLException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WriteBehindQueueTest {
+    private static final int MAX_PENDING = 2;
+
+    @Mock
+    private DatabaseStoreInterface<Player, String> repository;
+
+    private WriteBehindQueue<Player, String> underTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        underTest = new WriteBehindQueue<>(repository, Player::getUuid, 100, TimeUnit.HOURS.toMillis(1), MAX_PENDING,
+                Logger.getLogger(WriteBehindQueueTest.class.getName()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void flush_WhenBatchFails_ShouldSaveOtherWritesAndDropTheFailingOne() throws Exception {
+        //given
+        final Player poison = new Player("uuid1", "poison");
+        final Player valid = new Player("uuid2", "valid");
+        when(repository.saveAll(any())).thenThrow(new SQLException("Data too long"));
+        when(repository.save(poison)).thenThrow(new SQLException("Data too long"));
+        underTest.enqueue(poison);
+        underTest.enqueue(valid);
+
+        //when
+        underTest.flush();
+
+        //then
+        verify(repository, times(1)).save(valid);
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    void flush_WhenDatabaseUnavailable_ShouldKeepWritesQueued() throws Exception {
+        //given
+        when(repository.saveAll(any())).thenThrow(new DatabaseUnavailableException());
+        underTest.enqueue(new Player("uuid1", "name"));
+
+        //when
+        assertThrows(DatabaseUnavailableException.class, () -> underTest.flush());
+
+        //then
+        verify(repository, never()).save(any());
+        assertEquals(1, underTest.size());
+    }
+
+    @Test
+    void enqueue_WhenQueueIsFull_ShouldRejectNewKeysButReplacePendingOnes() {
+        //given
+        underTest.enqueue(new Player("uuid1", "first"));
+        underTest.enqueue(new Player("uuid2", "second"));
+        final Player renamed = new Player("uuid1", "renamed");
+
+        //when
+        assertThrows(RejectedExecutionException.class, () -> underTest.enqueue(new Player("uuid3", "third")));
+        underTest.enqueue(renamed);
+
+        //then
+        assertEquals(MAX_PENDING, underTest.size());
+        assertEquals(renamed, underTest.getPending("uuid1"));
+        assertNull(underTest.getPending("uuid3"));
+    }
+}